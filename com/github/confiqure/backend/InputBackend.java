@@ -0,0 +1,79 @@
+package com.github.confiqure.backend;
+
+import java.awt.Point;
+
+/**
+ *
+ * Destination of mouse and keyboard events. Methods mirror those of java.awt.Robot so that Keyboard and Mouse can drive the real system or a stand-in.
+ * 
+ * @author Dylan Wheeler
+ * @see java.awt.Robot
+ */
+public interface InputBackend {
+    
+    /**
+     *
+     * Moves the mouse pointer.
+     * 
+     * @param x x-coordinate to move to
+     * @param y y-coordinate to move to
+     */
+    void mouseMove(int x, int y);
+    
+    /**
+     *
+     * Presses one or more mouse buttons.
+     * 
+     * @param buttons button mask, such as InputEvent.BUTTON1_MASK
+     */
+    void mousePress(int buttons);
+    
+    /**
+     *
+     * Releases one or more mouse buttons.
+     * 
+     * @param buttons button mask, such as InputEvent.BUTTON1_MASK
+     */
+    void mouseRelease(int buttons);
+    
+    /**
+     *
+     * Rotates the scroll wheel.
+     * 
+     * @param amt number of notches to rotate. Negative indicates the wheel is moving away, positive indicates toward the user.
+     */
+    void mouseWheel(int amt);
+    
+    /**
+     *
+     * Presses a key.
+     * 
+     * @param key key code, such as KeyEvent.VK_A
+     */
+    void keyPress(int key);
+    
+    /**
+     *
+     * Releases a key.
+     * 
+     * @param key key code, such as KeyEvent.VK_A
+     */
+    void keyRelease(int key);
+    
+    /**
+     *
+     * Waits until every event sent so far has been handled.
+     * 
+     */
+    void waitForIdle();
+    
+    /**
+     *
+     * Returns the location of the mouse pointer.
+     * 
+     * @return pointer location or null if it cannot be read or is on another screen
+     * @see java.awt.Point
+     */
+    Point getMouseLocation();
+    
+}
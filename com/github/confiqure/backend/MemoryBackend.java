@@ -0,0 +1,245 @@
+package com.github.confiqure.backend;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ *
+ * Backend that needs no display. Input events are recorded instead of sent, and captures are cut from a synthetic frame set by the caller, so macro logic can be exercised headless and at full speed. Frames default to black. Instances are safe for use by multiple threads.
+ * 
+ * @author Dylan Wheeler
+ */
+public class MemoryBackend implements InputBackend, ScreenBackend {
+    
+    private final Dimension size;
+    private final List<Event> events = new ArrayList<>();
+    private final Point mouse = new Point();
+    private Supplier<BufferedImage> frames = null;
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param width width of the synthetic screen
+     * @param height height of the synthetic screen
+     */
+    public MemoryBackend(final int width, final int height) {
+        size = new Dimension(width, height);
+    }
+    
+    /**
+     *
+     * Sets the frame every capture is cut from until it is replaced.
+     * 
+     * @param frame image of the whole screen, or null for a black screen
+     * @see java.awt.image.BufferedImage
+     */
+    public void setFrame(final BufferedImage frame) {
+        setFrames(frame == null ? null : () -> frame);
+    }
+    
+    /**
+     *
+     * Sets a source asked for the current frame on every capture, for instance to animate the screen or react to recorded input.
+     * 
+     * @param frames supplier of images of the whole screen, or null for a black screen
+     * @see java.util.function.Supplier
+     */
+    public synchronized void setFrames(final Supplier<BufferedImage> frames) {
+        this.frames = frames;
+    }
+    
+    /**
+     *
+     * Returns the events recorded so far.
+     * 
+     * @return unmodifiable copy of the events, oldest first
+     */
+    public synchronized List<Event> getEvents() {
+        return Collections.unmodifiableList(new ArrayList<>(events));
+    }
+    
+    /**
+     *
+     * Discards the recorded events.
+     * 
+     */
+    public synchronized void clearEvents() {
+        events.clear();
+    }
+    
+    @Override
+    public synchronized Point getMouseLocation() {
+        return new Point(mouse);
+    }
+    
+    @Override
+    public synchronized void mouseMove(final int x, final int y) {
+        mouse.setLocation(x, y);
+        events.add(new Event(Event.Type.MOUSE_MOVE, x, y, 0));
+    }
+    
+    @Override
+    public synchronized void mousePress(final int buttons) {
+        events.add(new Event(Event.Type.MOUSE_PRESS, mouse.x, mouse.y, buttons));
+    }
+    
+    @Override
+    public synchronized void mouseRelease(final int buttons) {
+        events.add(new Event(Event.Type.MOUSE_RELEASE, mouse.x, mouse.y, buttons));
+    }
+    
+    @Override
+    public synchronized void mouseWheel(final int amt) {
+        events.add(new Event(Event.Type.MOUSE_WHEEL, mouse.x, mouse.y, amt));
+    }
+    
+    @Override
+    public synchronized void keyPress(final int key) {
+        events.add(new Event(Event.Type.KEY_PRESS, mouse.x, mouse.y, key));
+    }
+    
+    @Override
+    public synchronized void keyRelease(final int key) {
+        events.add(new Event(Event.Type.KEY_RELEASE, mouse.x, mouse.y, key));
+    }
+    
+    @Override
+    public void waitForIdle() {
+        //events are recorded synchronously, there is never anything pending
+    }
+    
+    @Override
+    public Dimension getScreenSize() {
+        return new Dimension(size);
+    }
+    
+    @Override
+    public BufferedImage createScreenCapture(final Rectangle rect) {
+        if (rect.isEmpty()) throw new IllegalArgumentException("Rectangle width and height must be > 0");
+        final BufferedImage capture = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_RGB);
+        createScreenCapture(rect, ((DataBufferInt) capture.getRaster().getDataBuffer()).getData());
+        return capture;
+    }
+    
+    @Override
+    public boolean createScreenCapture(final Rectangle rect, final int[] data) {
+        if (data == null) return true;
+        if (rect.isEmpty()) throw new IllegalArgumentException("Rectangle width and height must be > 0");
+        Arrays.fill(data, 0, rect.width * rect.height, 0xFF000000);
+        final BufferedImage frame = frame();
+        if (frame != null) {
+            //only the part of the area that lies on the frame is copied, the rest stays black
+            final Rectangle r = rect.intersection(new Rectangle(0, 0, frame.getWidth(), frame.getHeight()));
+            if (!r.isEmpty()) frame.getRGB(r.x, r.y, r.width, r.height, data, (r.y - rect.y) * rect.width + r.x - rect.x, rect.width);
+        }
+        return true;
+    }
+    
+    @Override
+    public int getPixelColor(final int x, final int y) {
+        final BufferedImage frame = frame();
+        if (frame == null || x < 0 || y < 0 || x >= frame.getWidth() || y >= frame.getHeight()) return 0xFF000000;
+        return frame.getRGB(x, y) | 0xFF000000;
+    }
+    
+    private BufferedImage frame() {
+        final Supplier<BufferedImage> source;
+        synchronized (this) {
+            source = frames;
+        }
+        return source == null ? null : source.get();
+    }
+    
+    /**
+     *
+     * Input event recorded by a MemoryBackend.
+     */
+    public static final class Event {
+
+        /**
+         *
+         * Kind of input event.
+         */
+        public enum Type {
+            MOUSE_MOVE, MOUSE_PRESS, MOUSE_RELEASE, MOUSE_WHEEL, KEY_PRESS, KEY_RELEASE
+        }
+
+        private final Type type;
+        private final int x, y, value;
+        private final long nanos = System.nanoTime();
+
+        Event(final Type type, final int x, final int y, final int value) {
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.value = value;
+        }
+
+        /**
+         *
+         * Returns the kind of event.
+         * 
+         * @return event type
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         *
+         * Returns the x-coordinate of the mouse pointer when the event happened.
+         * 
+         * @return pointer x-coordinate
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         *
+         * Returns the y-coordinate of the mouse pointer when the event happened.
+         * 
+         * @return pointer y-coordinate
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         *
+         * Returns the button mask, key code or wheel notches of the event.
+         * 
+         * @return value passed to the backend, or 0 for a move
+         */
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         *
+         * Returns when the event was recorded.
+         * 
+         * @return value of System.nanoTime() at the event
+         * @see java.lang.System#nanoTime()
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return type + "[" + x + "," + y + "," + value + "]";
+        }
+
+    }
+    
+}
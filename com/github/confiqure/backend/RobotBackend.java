@@ -0,0 +1,162 @@
+package com.github.confiqure.backend;
+
+import java.awt.AWTException;
+import java.awt.Dimension;
+import java.awt.GraphicsDevice;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * Backend driving the real display through java.awt.Robot. A single Robot is created the first time it is asked for and shared by every Keyboard, Mouse and Images in the process, so its native setup is paid once.
+ * <p>
+ * A backend for a specific screen device works in the coordinates of that screen: (0, 0) is its top left corner, whatever its position in the virtual desktop, and the pointer is only reported while it is on that screen.
+ * 
+ * @author Dylan Wheeler
+ * @see java.awt.Robot
+ */
+public class RobotBackend implements InputBackend, ScreenBackend {
+    
+    private static RobotBackend shared = null;
+    private static final Map<String, RobotBackend> devices = new HashMap<>();
+    
+    private final Robot r;
+    private final GraphicsDevice device;
+    private final Rectangle bounds;
+    
+    /**
+     *
+     * Creates new instance over an existing Robot.
+     * 
+     * @param robot robot to send events and take captures with
+     * @see java.awt.Robot
+     */
+    public RobotBackend(final Robot robot) {
+        this(robot, null);
+    }
+    
+    private RobotBackend(final Robot robot, final GraphicsDevice device) {
+        r = robot;
+        this.device = device;
+        bounds = device == null ? null : device.getDefaultConfiguration().getBounds();
+    }
+    
+    /**
+     *
+     * Returns the shared backend, creating its Robot on the first call.
+     * 
+     * @return backend over the shared Robot
+     * @throws AWTException if the Robot could not be instanced
+     * @see java.awt.Robot
+     */
+    public static synchronized RobotBackend get() throws AWTException {
+        if (shared == null) shared = new RobotBackend(new Robot());
+        return shared;
+    }
+    
+    /**
+     *
+     * Returns the backend of a screen device, creating its Robot on the first call for that device.
+     * 
+     * @param device screen to drive
+     * @return backend over the device's Robot, in the coordinates of the device
+     * @throws AWTException if the Robot could not be instanced
+     * @see java.awt.GraphicsDevice
+     */
+    public static synchronized RobotBackend get(final GraphicsDevice device) throws AWTException {
+        RobotBackend backend = devices.get(device.getIDstring());
+        if (backend == null) {
+            backend = new RobotBackend(new Robot(device), device);
+            devices.put(device.getIDstring(), backend);
+        }
+        return backend;
+    }
+    
+    /**
+     *
+     * Returns the Robot behind the backend.
+     * 
+     * @return robot events and captures go through
+     * @see java.awt.Robot
+     */
+    public Robot getRobot() {
+        return r;
+    }
+    
+    @Override
+    public void mouseMove(final int x, final int y) {
+        r.mouseMove(x + x(), y + y());
+    }
+    
+    @Override
+    public void mousePress(final int buttons) {
+        r.mousePress(buttons);
+    }
+    
+    @Override
+    public void mouseRelease(final int buttons) {
+        r.mouseRelease(buttons);
+    }
+    
+    @Override
+    public void mouseWheel(final int amt) {
+        r.mouseWheel(amt);
+    }
+    
+    @Override
+    public void keyPress(final int key) {
+        r.keyPress(key);
+    }
+    
+    @Override
+    public void keyRelease(final int key) {
+        r.keyRelease(key);
+    }
+    
+    @Override
+    public void waitForIdle() {
+        r.waitForIdle();
+    }
+    
+    @Override
+    public Point getMouseLocation() {
+        final PointerInfo info = MouseInfo.getPointerInfo();
+        if (info == null) return null;
+        //screens that are not part of one virtual desktop have overlapping coordinates, so a pointer on another screen would look like one on this screen
+        if (device != null && (info.getDevice() == null || !device.getIDstring().equals(info.getDevice().getIDstring()))) return null;
+        final Point p = info.getLocation();
+        p.translate(-x(), -y());
+        return p;
+    }
+    
+    @Override
+    public Dimension getScreenSize() {
+        return bounds == null ? Toolkit.getDefaultToolkit().getScreenSize() : bounds.getSize();
+    }
+    
+    @Override
+    public BufferedImage createScreenCapture(final Rectangle rect) {
+        return r.createScreenCapture(bounds == null ? rect : new Rectangle(rect.x + x(), rect.y + y(), rect.width, rect.height));
+    }
+    
+    @Override
+    public int getPixelColor(final int x, final int y) {
+        return r.getPixelColor(x + x(), y + y()).getRGB();
+    }
+    
+    private int x() {
+        return bounds == null ? 0 : bounds.x;
+    }
+    
+    private int y() {
+        return bounds == null ? 0 : bounds.y;
+    }
+    
+}
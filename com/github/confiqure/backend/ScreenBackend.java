@@ -0,0 +1,59 @@
+package com.github.confiqure.backend;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ *
+ * Source of screen captures. Methods mirror those of java.awt.Robot so that Images can read the real display or synthetic frames.
+ * 
+ * @author Dylan Wheeler
+ * @see java.awt.Robot
+ */
+public interface ScreenBackend {
+    
+    /**
+     *
+     * Returns the size of the screen.
+     * 
+     * @return width and height in pixels
+     * @see java.awt.Dimension
+     */
+    Dimension getScreenSize();
+    
+    /**
+     *
+     * Captures part of the screen.
+     * 
+     * @param rect bounds to capture
+     * @return new image of the area, which the caller may modify
+     * @see java.awt.Rectangle
+     * @see java.awt.image.BufferedImage
+     */
+    BufferedImage createScreenCapture(Rectangle rect);
+    
+    /**
+     *
+     * Captures part of the screen into an existing array instead of a new image. Backends that cannot write into a caller's array, such as java.awt.Robot, keep the default, which captures nothing.
+     * 
+     * @param rect bounds to capture
+     * @param data array that receives the packed RGB pixels row by row, at least rect.width * rect.height long, or null to only ask whether the backend supports this
+     * @return true if the backend writes captures into the array, false if it can only return new images from createScreenCapture
+     * @see java.awt.Rectangle
+     */
+    default boolean createScreenCapture(final Rectangle rect, final int[] data) {
+        return false;
+    }
+    
+    /**
+     *
+     * Returns the color of a pixel on the screen.
+     * 
+     * @param x x-coordinate of the pixel
+     * @param y y-coordinate of the pixel
+     * @return the RGB value of the color in the default sRGB ColorModel
+     */
+    int getPixelColor(int x, int y);
+    
+}
@@ -0,0 +1,371 @@
+package com.github.confiqure.input;
+
+import com.github.confiqure.backend.InputBackend;
+import com.github.confiqure.util.Time;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.InputEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ *
+ * Plays input on a dedicated thread so the calling thread is free to analyze the screen in the meantime. Every action is a sequence of steps, each stamped with its time from the start of the sequence, and sequences are played one after another in the order they were submitted. Steps are timed against the start of their sequence rather than the previous step, so slow native calls do not add up. Each action returns a future completed once its last step has run; callbacks attached to it run on the input thread and should be kept short. An action cut short by close() or a failed step releases every button and key it pressed and had not released yet.
+ * 
+ * @author Dylan Wheeler
+ */
+public class InputScheduler implements AutoCloseable {
+    
+    private final Mouse mouse;
+    private final Keyboard keyboard;
+    private final ExecutorService player = Executors.newSingleThreadExecutor(task -> {
+        final Thread t = new Thread(task, "InputScheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    /**
+     *
+     * Creates new instance. Delays between steps are taken from the sleeps set on the mouse and keyboard.
+     * 
+     * @param mouse mouse to play mouse actions with, or null if there are none; mouse actions then throw IllegalStateException
+     * @param keyboard keyboard to play key actions with, or null if there are none; key actions then throw IllegalStateException
+     * @see com.github.confiqure.input.Mouse
+     * @see com.github.confiqure.input.Keyboard
+     */
+    public InputScheduler(final Mouse mouse, final Keyboard keyboard) {
+        this.mouse = mouse;
+        this.keyboard = keyboard;
+    }
+    
+    /**
+     *
+     * Starts a sequence of steps to be submitted as a single action.
+     * 
+     * @return empty sequence
+     */
+    public Sequence sequence() {
+        return new Sequence();
+    }
+    
+    /**
+     *
+     * Left clicks the Mouse at a specific Point on the screen.
+     * 
+     * @param p Point for click event to occur
+     * @return future completed once the button is released
+     * @see java.awt.Point
+     */
+    public CompletableFuture<Void> click(final Point p) {
+        return click(p.x, p.y, true);
+    }
+    
+    /**
+     *
+     * Clicks the Mouse at a specific point on the screen.
+     * 
+     * @param x x-coordinate for click event to occur
+     * @param y y-coordinate for click event to occur
+     * @param left true for left click, false for right click
+     * @return future completed once the button is released
+     */
+    public CompletableFuture<Void> click(final int x, final int y, final boolean left) {
+        return sequence().move(x, y).sleep(mouse().moveSleep()).press(left).sleep(mouse().clickSleep()).release(left).submit();
+    }
+    
+    /**
+     *
+     * Clicks the mouse at the top left corner of a Rectangle and drags it to the bottom right corner.
+     * 
+     * @param selection the selection of pixels to drag the mouse across
+     * @return future completed once the button is released and the click sleep has passed
+     * @see java.awt.Rectangle
+     */
+    public CompletableFuture<Void> drag(final Rectangle selection) {
+        return drag(selection.x, selection.y, selection.x + selection.width, selection.y + selection.height);
+    }
+    
+    /**
+     *
+     * Clicks the mouse at one point and drags it to another point.
+     * 
+     * @param x x-coordinate for press event to occur
+     * @param y y-coordinate for press event to occur
+     * @param x2 x-coordinate for release event to occur
+     * @param y2 y-coordinate for release event to occur
+     * @return future completed once the button is released and the click sleep has passed
+     */
+    public CompletableFuture<Void> drag(final int x, final int y, final int x2, final int y2) {
+        return sequence().move(x, y).sleep(mouse().moveSleep()).press(true).sleep(mouse().clickSleep())
+                .move(x2, y2).sleep(mouse().moveSleep()).release(true).sleep(mouse().clickSleep()).submit();
+    }
+    
+    /**
+     *
+     * Presses and releases a key.
+     * 
+     * @param key key to type
+     * @return future completed once the key is released
+     */
+    public CompletableFuture<Void> type(final int key) {
+        return sequence().keyPress(key).sleep(keyboard().pressSleep()).keyRelease(key).submit();
+    }
+    
+    /**
+     *
+     * Presses and releases two keys at the same time.
+     * 
+     * @param key1 first key to type
+     * @param key2 second key to type
+     * @return future completed once both keys are released
+     */
+    public CompletableFuture<Void> comboType(final int key1, final int key2) {
+        final long sleep = keyboard().pressSleep();
+        return sequence().keyPress(key1).sleep(sleep).keyPress(key2).sleep(sleep).keyRelease(key2).sleep(sleep).keyRelease(key1).submit();
+    }
+    
+    /**
+     *
+     * Stops the input thread. The action being played stops after its current step and releases whatever it holds down, and every action not yet started is cancelled.
+     * 
+     */
+    @Override
+    public void close() {
+        for (final Runnable r : player.shutdownNow()) {
+            ((Action) r).future.cancel(false);
+        }
+    }
+    
+    private Mouse mouse() {
+        if (mouse == null) throw new IllegalStateException("Input scheduler has no mouse");
+        return mouse;
+    }
+    
+    private Keyboard keyboard() {
+        if (keyboard == null) throw new IllegalStateException("Input scheduler has no keyboard");
+        return keyboard;
+    }
+    
+    /**
+     *
+     * Timed steps played as one action. Each step is stamped with the total of the sleeps added before it.
+     */
+    public final class Sequence {
+
+        private final List<Long> times = new ArrayList<>();
+        private final List<Step> steps = new ArrayList<>();
+        private long elapsed = 0;
+
+        private Sequence() {}
+
+        /**
+         *
+         * Adds a move of the mouse.
+         * 
+         * @param x x-coordinate to move to
+         * @param y y-coordinate to move to
+         * @return this sequence
+         * @throws IllegalStateException if the scheduler has no mouse
+         */
+        public Sequence move(final int x, final int y) {
+            final InputBackend backend = mouse().backend();
+            return step(action -> backend.mouseMove(x, y));
+        }
+
+        /**
+         *
+         * Adds a press of a mouse button.
+         * 
+         * @param left true for the left button, false for the right button
+         * @return this sequence
+         * @throws IllegalStateException if the scheduler has no mouse
+         */
+        public Sequence press(final boolean left) {
+            final InputBackend backend = mouse().backend();
+            final int button = left ? InputEvent.BUTTON1_DOWN_MASK : InputEvent.BUTTON3_DOWN_MASK;
+            return step(action -> {
+                backend.mousePress(button);
+                action.buttons.add(button);
+            });
+        }
+
+        /**
+         *
+         * Adds a release of a mouse button.
+         * 
+         * @param left true for the left button, false for the right button
+         * @return this sequence
+         * @throws IllegalStateException if the scheduler has no mouse
+         */
+        public Sequence release(final boolean left) {
+            final InputBackend backend = mouse().backend();
+            final int button = left ? InputEvent.BUTTON1_DOWN_MASK : InputEvent.BUTTON3_DOWN_MASK;
+            return step(action -> {
+                backend.mouseRelease(button);
+                action.buttons.remove((Integer) button);
+            });
+        }
+
+        /**
+         *
+         * Adds a rotation of the scroll wheel.
+         * 
+         * @param amt number of notches to rotate. Negative indicates the wheel is moving away, positive indicates toward the user.
+         * @return this sequence
+         * @throws IllegalStateException if the scheduler has no mouse
+         */
+        public Sequence wheel(final int amt) {
+            final InputBackend backend = mouse().backend();
+            return step(action -> backend.mouseWheel(amt));
+        }
+
+        /**
+         *
+         * Adds a press of a key.
+         * 
+         * @param key key to press
+         * @return this sequence
+         * @throws IllegalStateException if the scheduler has no keyboard
+         */
+        public Sequence keyPress(final int key) {
+            final InputBackend backend = keyboard().backend();
+            return step(action -> {
+                backend.keyPress(key);
+                action.keys.add(key);
+            });
+        }
+
+        /**
+         *
+         * Adds a release of a key.
+         * 
+         * @param key key to release
+         * @return this sequence
+         * @throws IllegalStateException if the scheduler has no keyboard
+         */
+        public Sequence keyRelease(final int key) {
+            final InputBackend backend = keyboard().backend();
+            return step(action -> {
+                backend.keyRelease(key);
+                action.keys.remove((Integer) key);
+            });
+        }
+
+        /**
+         *
+         * Delays the steps added after this one.
+         * 
+         * @param millis milliseconds between the previous step and the next
+         * @return this sequence
+         */
+        public Sequence sleep(final long millis) {
+            elapsed += Math.max(0, millis) * 1000000L;
+            return this;
+        }
+
+        /**
+         *
+         * Queues the sequence behind every action already submitted. A sequence ending in a sleep completes once the sleep has passed.
+         * 
+         * @return future completed once the last step has run, or completed exceptionally if a step failed
+         */
+        public CompletableFuture<Void> submit() {
+            final Action action = new Action(times.stream().mapToLong(Long::longValue).toArray(), steps.toArray(new Step[0]), elapsed);
+            try {
+                player.execute(action);
+            } catch (final RuntimeException ex) {
+                action.future.completeExceptionally(ex);
+            }
+            return action.future;
+        }
+
+        private Sequence step(final Step step) {
+            times.add(elapsed);
+            steps.add(step);
+            return this;
+        }
+
+    }
+    
+    /**
+     *
+     * Step of a sequence, played as part of an action.
+     */
+    private interface Step {
+
+        void run(Action action);
+
+    }
+    
+    /**
+     *
+     * Submitted sequence with the future it completes, and the buttons and keys it is holding down while it plays.
+     */
+    private final class Action implements Runnable {
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final List<Integer> buttons = new ArrayList<>(), keys = new ArrayList<>();
+        private final long[] times;
+        private final Step[] steps;
+        private final long end;
+
+        Action(final long[] times, final Step[] steps, final long end) {
+            this.times = times;
+            this.steps = steps;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) return;
+            final long start = System.nanoTime();
+            try {
+                for (int i = 0; i < steps.length; i++) {
+                    if (!Time.sleepUntil(start + times[i])) {
+                        future.completeExceptionally(new CancellationException("Input scheduler closed"));
+                        return;
+                    }
+                    steps[i].run(this);
+                }
+                if (Time.sleepUntil(start + end)) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(new CancellationException("Input scheduler closed"));
+                }
+            } catch (final RuntimeException ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                if (future.isCompletedExceptionally()) release();
+            }
+        }
+
+        /**
+         *
+         * Releases what the action pressed and never released, most recent first.
+         */
+        private void release() {
+            for (int i = keys.size() - 1; i >= 0; i--) {
+                try {
+                    keyboard.backend().keyRelease(keys.get(i));
+                } catch (final RuntimeException ex) {
+                    //keep releasing the rest
+                }
+            }
+            for (int i = buttons.size() - 1; i >= 0; i--) {
+                try {
+                    mouse.backend().mouseRelease(buttons.get(i));
+                } catch (final RuntimeException ex) {
+                    //keep releasing the rest
+                }
+            }
+            keys.clear();
+            buttons.clear();
+        }
+
+    }
+    
+}
@@ -0,0 +1,95 @@
+package com.github.confiqure.input;
+
+import java.awt.event.KeyEvent;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * Table from characters to the key that types them on a keyboard layout, and whether shift must be held. The table is built once per layout and looked up for every character typed.
+ * 
+ * @author Dylan Wheeler
+ */
+public class KeyMap {
+    
+    /**
+     * US QWERTY layout, covering printable ASCII, tab and line breaks.
+     */
+    public static final KeyMap US = us();
+    
+    //entries are (key << 1) | shift, 0 for characters that cannot be typed
+    private final int[] ascii = new int[128];
+    private final Map<Character, Integer> others = new HashMap<>();
+    
+    /**
+     *
+     * Adds or replaces the key typing a character.
+     * 
+     * @param c character to type
+     * @param key key code, such as KeyEvent.VK_A
+     * @param shift true if shift must be held while the key is typed
+     * @return this map
+     */
+    public KeyMap put(final char c, final int key, final boolean shift) {
+        final int entry = (key << 1) | (shift ? 1 : 0);
+        if (c < ascii.length) {
+            ascii[c] = entry;
+        } else {
+            others.put(c, entry);
+        }
+        return this;
+    }
+    
+    /**
+     *
+     * Checks if every character of a text can be typed with this layout.
+     * 
+     * @param text text to check
+     * @return true if no character is missing from the map
+     */
+    public boolean canType(final CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (entry(text.charAt(i)) == 0) return false;
+        }
+        return true;
+    }
+    
+    /**
+     *
+     * Returns the packed key of a character.
+     * 
+     * @param c character to look up
+     * @return key code shifted left by one with the shift flag in the lowest bit, or 0 if the character cannot be typed
+     */
+    int entry(final char c) {
+        if (c < ascii.length) return ascii[c];
+        final Integer entry = others.get(c);
+        return entry == null ? 0 : entry;
+    }
+    
+    private static KeyMap us() {
+        final KeyMap map = new KeyMap();
+        for (char c = 'a'; c <= 'z'; c++) {
+            map.put(c, KeyEvent.VK_A + (c - 'a'), false);
+            map.put(Character.toUpperCase(c), KeyEvent.VK_A + (c - 'a'), true);
+        }
+        final String digits = "0123456789", shifted = ")!@#$%^&*(";
+        for (int i = 0; i < 10; i++) {
+            map.put(digits.charAt(i), KeyEvent.VK_0 + i, false);
+            map.put(shifted.charAt(i), KeyEvent.VK_0 + i, true);
+        }
+        final String plain = "`-=[]\\;',./", shift = "~_+{}|:\"<>?";
+        final int[] keys = {KeyEvent.VK_BACK_QUOTE, KeyEvent.VK_MINUS, KeyEvent.VK_EQUALS, KeyEvent.VK_OPEN_BRACKET, KeyEvent.VK_CLOSE_BRACKET, KeyEvent.VK_BACK_SLASH,
+            KeyEvent.VK_SEMICOLON, KeyEvent.VK_QUOTE, KeyEvent.VK_COMMA, KeyEvent.VK_PERIOD, KeyEvent.VK_SLASH};
+        for (int i = 0; i < keys.length; i++) {
+            map.put(plain.charAt(i), keys[i], false);
+            map.put(shift.charAt(i), keys[i], true);
+        }
+        map.put(' ', KeyEvent.VK_SPACE, false);
+        map.put('\t', KeyEvent.VK_TAB, false);
+        map.put('\n', KeyEvent.VK_ENTER, false);
+        map.put('\r', KeyEvent.VK_ENTER, false);
+        return map;
+    }
+    
+}
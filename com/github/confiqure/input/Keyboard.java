@@ -1,10 +1,13 @@
 package com.github.confiqure.input;
 
+import com.github.confiqure.backend.InputBackend;
+import com.github.confiqure.backend.RobotBackend;
 import com.github.confiqure.io.Clipboard;
 import com.github.confiqure.util.Time;
 import java.awt.AWTException;
-import java.awt.Robot;
 import java.awt.event.KeyEvent;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  *
@@ -14,18 +17,33 @@ import java.awt.event.KeyEvent;
  */
 public class Keyboard {
     
-    private final Robot r;
-    private long PRESS_SLEEP = 50;
+    private final InputBackend r;
+    private long PRESS_SLEEP = 50, TYPE_SLEEP = 10;
+    private Pacer pacer = null;
+    private KeyMap keyMap = KeyMap.US;
+    private double charCost = -1, pasteCost = -1;
+    private Lock lock = new ReentrantLock();
     
     /**
      *
-     * Creates new instance of Keyboard.
+     * Creates new instance of Keyboard using the shared Robot.
      * 
      * @throws AWTException if the Robot could not be instanced
-     * @see java.awt.Robot
+     * @see com.github.confiqure.backend.RobotBackend#get()
      */
     public Keyboard() throws AWTException {
-        r = new Robot();
+        this(RobotBackend.get());
+    }
+    
+    /**
+     *
+     * Creates new instance of Keyboard sending its events to a backend.
+     * 
+     * @param backend backend to send events to
+     * @see com.github.confiqure.backend.InputBackend
+     */
+    public Keyboard(final InputBackend backend) {
+        r = backend;
     }
     
     /**
@@ -36,13 +54,19 @@ public class Keyboard {
      * @param key2 second key to type
      */
     public void comboType(final int key1, final int key2) {
-        r.keyPress(key1);
-        Time.sleep(PRESS_SLEEP);
-        r.keyPress(key2);
-        Time.sleep(PRESS_SLEEP);
-        r.keyRelease(key2);
-        Time.sleep(PRESS_SLEEP);
-        r.keyRelease(key1);
+        final Lock held = lock;
+        held.lock();
+        try {
+            r.keyPress(key1);
+            pausePress();
+            r.keyPress(key2);
+            pausePress();
+            r.keyRelease(key2);
+            pausePress();
+            r.keyRelease(key1);
+        } finally {
+            held.unlock();
+        }
     }
     
     /**
@@ -57,24 +81,30 @@ public class Keyboard {
     
     /**
      *
-     * Pastes specific text. Compatible with Macintosh, Windows, and Linux operating systems.
+     * Pastes specific text. Compatible with Macintosh, Windows, and Linux operating systems. The text is put on the clipboard first, even on other operating systems, and the clipboard is held until the paste has settled since the target reads it only when it handles the keystroke.
      * 
      * @param text text to paste
      * @param enter create a new line after pasting text
-     * @return true if text pasted successfully
+     * @return true if text pasted successfully, false if it was only put on the clipboard
      */
     public boolean paste(final String text, final boolean enter) {
-        Clipboard.set(text);
-        if (System.getProperty("os.name").contains("Mac")) {
-            comboType(KeyEvent.VK_META, KeyEvent.VK_V);
-            if (enter) type(KeyEvent.VK_ENTER);
-            return true;
-        } else if (System.getProperty("os.name").contains("Windows") || System.getProperty("os.name").contains("Linux")) {
-            comboType(KeyEvent.VK_CONTROL, KeyEvent.VK_V);
+        final Lock held = lock;
+        held.lock();
+        try {
+            //the clipboard is shared by every keyboard in the process, so setting and pasting must not interleave
+            synchronized (Clipboard.class) {
+                Clipboard.set(text);
+                final int modifier = pasteModifier();
+                if (modifier == KeyEvent.VK_UNDEFINED) return false;
+                comboType(modifier, KeyEvent.VK_V);
+                //the target reads the clipboard asynchronously, so another paste must not replace it before the keystroke has settled
+                pausePress();
+            }
             if (enter) type(KeyEvent.VK_ENTER);
             return true;
+        } finally {
+            held.unlock();
         }
-        return false;
     }
     
     /**
@@ -84,9 +114,75 @@ public class Keyboard {
      * @param key key to type
      */
     public void type(final int key) {
-        r.keyPress(key);
-        Time.sleep(PRESS_SLEEP);
-        r.keyRelease(key);
+        final Lock held = lock;
+        held.lock();
+        try {
+            r.keyPress(key);
+            pausePress();
+            r.keyRelease(key);
+        } finally {
+            held.unlock();
+        }
+    }
+    
+    /**
+     *
+     * Types text. Each character is looked up in the key map and typed as a press and release of its key, holding shift only across runs of characters that need it, with a short sleep between characters. Text is pasted instead when it holds a character missing from the key map, or when it is long enough that pasting is expected to be faster; the cost of both is measured as they are used. Pasting replaces the contents of the clipboard, and is never chosen on an operating system it is not supported on.
+     * 
+     * @param text text to type
+     * @throws IllegalArgumentException if the text cannot be typed with the key map and pasting is not supported on this operating system
+     * @see com.github.confiqure.input.KeyMap
+     */
+    public void type(final CharSequence text) {
+        if (text.length() == 0) return;
+        final Lock held = lock;
+        held.lock();
+        try {
+            final boolean typeable = keyMap.canType(text);
+            final boolean pasteable = pasteModifier() != KeyEvent.VK_UNDEFINED;
+            if (!typeable && !pasteable) throw new IllegalArgumentException("Text cannot be typed with the key map: " + text);
+            final double perChar = charCost < 0 ? (TYPE_SLEEP + 1) * 1000000.0 : charCost;
+            final double perPaste = pasteCost < 0 ? 4 * PRESS_SLEEP * 1000000.0 : pasteCost;
+            if (pasteable && (!typeable || text.length() * perChar > perPaste)) {
+                final long start = System.nanoTime();
+                paste(text.toString(), false);
+                final long cost = System.nanoTime() - start;
+                pasteCost = pasteCost < 0 ? cost : pasteCost + (cost - pasteCost) / 4;
+                return;
+            }
+            final long start = System.nanoTime();
+            boolean shifted = false;
+            try {
+                for (int i = 0; i < text.length(); i++) {
+                    final char c = text.charAt(i);
+                    //a \r\n pair is a single line break
+                    if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') continue;
+                    final int entry = keyMap.entry(c);
+                    final boolean shift = (entry & 1) != 0;
+                    if (shift != shifted) {
+                        if (shift) {
+                            r.keyPress(KeyEvent.VK_SHIFT);
+                        } else {
+                            r.keyRelease(KeyEvent.VK_SHIFT);
+                        }
+                        shifted = shift;
+                    }
+                    r.keyPress(entry >>> 1);
+                    r.keyRelease(entry >>> 1);
+                    if (pacer == null) {
+                        Time.sleep(TYPE_SLEEP);
+                    } else {
+                        pacer.settle(r, Pacer.Action.TYPE, TYPE_SLEEP);
+                    }
+                }
+            } finally {
+                if (shifted) r.keyRelease(KeyEvent.VK_SHIFT);
+            }
+            final double cost = (double) (System.nanoTime() - start) / text.length();
+            charCost = charCost < 0 ? cost : charCost + (cost - charCost) / 4;
+        } finally {
+            held.unlock();
+        }
     }
     
     /**
@@ -96,17 +192,23 @@ public class Keyboard {
      * @return true if hotkey was applied, false if not
      */
     public boolean quit() {
-        if (System.getProperty("os.name").contains("Mac")) {
-            comboType(KeyEvent.VK_META, KeyEvent.VK_Q);
-            return true;
-        } else if (System.getProperty("os.name").contains("Windows")) {
-            comboType(KeyEvent.VK_ALT, KeyEvent.VK_F4);
-            return true;
-        } else if (System.getProperty("os.name").contains("Linux")) {
-            comboType(KeyEvent.VK_CONTROL, KeyEvent.VK_Q);
-            return true;
+        final Lock held = lock;
+        held.lock();
+        try {
+            if (System.getProperty("os.name").contains("Mac")) {
+                comboType(KeyEvent.VK_META, KeyEvent.VK_Q);
+                return true;
+            } else if (System.getProperty("os.name").contains("Windows")) {
+                comboType(KeyEvent.VK_ALT, KeyEvent.VK_F4);
+                return true;
+            } else if (System.getProperty("os.name").contains("Linux")) {
+                comboType(KeyEvent.VK_CONTROL, KeyEvent.VK_Q);
+                return true;
+            }
+            return false;
+        } finally {
+            held.unlock();
         }
-        return false;
     }
     
     /**
@@ -119,4 +221,76 @@ public class Keyboard {
         PRESS_SLEEP = sleep;
     }
     
+    /**
+     *
+     * Sets the time to sleep between characters typed from text.
+     * 
+     * @param sleep milliseconds to sleep: 10ms by default
+     */
+    public void setTypeSleep(final long sleep) {
+        TYPE_SLEEP = sleep;
+    }
+    
+    /**
+     *
+     * Sets the key map text is typed with.
+     * 
+     * @param keyMap table from characters to keys: KeyMap.US by default
+     * @see com.github.confiqure.input.KeyMap
+     */
+    public void setKeyMap(final KeyMap keyMap) {
+        this.keyMap = keyMap;
+    }
+    
+    /**
+     *
+     * Replaces the fixed sleep with pauses learned from how long the keyboard takes to respond.
+     * 
+     * @param pacer pacer to time key presses with, or null to go back to the fixed sleep
+     * @see com.github.confiqure.input.Pacer
+     */
+    public void setPacer(final Pacer pacer) {
+        this.pacer = pacer;
+    }
+    
+    /**
+     *
+     * Shares a lock with the other keyboards and mice driving the same keyboard focus, so that each key, combination, paste and run of typed text completes before another one starts. The lock is held for the whole action, including its sleeps.
+     * 
+     * @param lock lock to hold during every action, or null for a lock of this keyboard alone
+     * @see com.github.confiqure.session.Session#getInputLock()
+     */
+    public void setInputLock(final Lock lock) {
+        this.lock = lock == null ? new ReentrantLock() : lock;
+    }
+    
+    InputBackend backend() {
+        return r;
+    }
+    
+    long pressSleep() {
+        return pacer == null ? PRESS_SLEEP : pacer.getDelay(Pacer.Action.PRESS, PRESS_SLEEP);
+    }
+    
+    /**
+     *
+     * Returns the modifier that pastes on this operating system.
+     * 
+     * @return VK_META on Mac, VK_CONTROL on Windows and Linux, VK_UNDEFINED where pasting is not supported
+     */
+    private static int pasteModifier() {
+        final String os = System.getProperty("os.name");
+        if (os.contains("Mac")) return KeyEvent.VK_META;
+        if (os.contains("Windows") || os.contains("Linux")) return KeyEvent.VK_CONTROL;
+        return KeyEvent.VK_UNDEFINED;
+    }
+    
+    private void pausePress() {
+        if (pacer == null) {
+            Time.sleep(PRESS_SLEEP);
+        } else {
+            pacer.settle(r, Pacer.Action.PRESS, PRESS_SLEEP);
+        }
+    }
+    
 }
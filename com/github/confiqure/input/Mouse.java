@@ -1,11 +1,14 @@
 package com.github.confiqure.input;
 
+import com.github.confiqure.backend.InputBackend;
+import com.github.confiqure.backend.RobotBackend;
 import com.github.confiqure.util.Time;
 import java.awt.AWTException;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.Robot;
 import java.awt.event.MouseEvent;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  *
@@ -15,18 +18,31 @@ import java.awt.event.MouseEvent;
  */
 public class Mouse {
     
-    private final Robot r;
+    private final InputBackend r;
     private long CLICK_SLEEP = 50, MOVE_SLEEP = 100;
+    private Pacer pacer = null;
+    private Lock lock = new ReentrantLock();
     
     /**
      *
-     * Creates new instance of Mouse.
+     * Creates new instance of Mouse using the shared Robot.
      * 
      * @throws AWTException if the Robot could not be instanced
-     * @see java.awt.Robot
+     * @see com.github.confiqure.backend.RobotBackend#get()
      */
     public Mouse() throws AWTException {
-        r = new Robot();
+        this(RobotBackend.get());
+    }
+    
+    /**
+     *
+     * Creates new instance of Mouse sending its events to a backend.
+     * 
+     * @param backend backend to send events to
+     * @see com.github.confiqure.backend.InputBackend
+     */
+    public Mouse(final InputBackend backend) {
+        r = backend;
     }
     
     /**
@@ -50,12 +66,18 @@ public class Mouse {
      * @param y2 y-coordinate for release event to occur
      */
     public void drag(final int x, final int y, final int x2, final int y2) {
-        move(x, y);
-        r.mousePress(MouseEvent.BUTTON1_MASK);
-        Time.sleep(CLICK_SLEEP);
-        move(x2, y2);
-        r.mouseRelease(MouseEvent.BUTTON1_MASK);
-        Time.sleep(CLICK_SLEEP);
+        final Lock held = lock;
+        held.lock();
+        try {
+            move(x, y);
+            r.mousePress(MouseEvent.BUTTON1_MASK);
+            pauseClick();
+            move(x2, y2);
+            r.mouseRelease(MouseEvent.BUTTON1_MASK);
+            pauseClick();
+        } finally {
+            held.unlock();
+        }
     }
     
     /**
@@ -74,14 +96,20 @@ public class Mouse {
      * @param left true for left click, false for right click
      */
     public void click(final boolean left) {
-        if (left) {
-            r.mousePress(MouseEvent.BUTTON1_MASK);
-            Time.sleep(CLICK_SLEEP);
-            r.mouseRelease(MouseEvent.BUTTON1_MASK);
-        } else {
-            r.mousePress(MouseEvent.BUTTON3_MASK);
-            Time.sleep(CLICK_SLEEP);
-            r.mouseRelease(MouseEvent.BUTTON3_MASK);
+        final Lock held = lock;
+        held.lock();
+        try {
+            if (left) {
+                r.mousePress(MouseEvent.BUTTON1_MASK);
+                pauseClick();
+                r.mouseRelease(MouseEvent.BUTTON1_MASK);
+            } else {
+                r.mousePress(MouseEvent.BUTTON3_MASK);
+                pauseClick();
+                r.mouseRelease(MouseEvent.BUTTON3_MASK);
+            }
+        } finally {
+            held.unlock();
         }
     }
     
@@ -104,8 +132,14 @@ public class Mouse {
      * @param y y-coordinate for click event to occur
      */
     public void click(final int x, final int y) {
-        move(x, y);
-        click(true);
+        final Lock held = lock;
+        held.lock();
+        try {
+            move(x, y);
+            click(true);
+        } finally {
+            held.unlock();
+        }
     }
     
     /**
@@ -117,8 +151,14 @@ public class Mouse {
      * @param left true for left click, false for right click
      */
     public void click(final int x, final int y, final boolean left) {
-        move(x, y);
-        click(left);
+        final Lock held = lock;
+        held.lock();
+        try {
+            move(x, y);
+            click(left);
+        } finally {
+            held.unlock();
+        }
     }
     
     /**
@@ -140,8 +180,18 @@ public class Mouse {
      * @param y y-coordinate to move to
      */
     public void move(final int x, final int y) {
-        r.mouseMove(x, y);
-        Time.sleep(MOVE_SLEEP);
+        final Lock held = lock;
+        held.lock();
+        try {
+            if (pacer == null) {
+                r.mouseMove(x, y);
+                Time.sleep(MOVE_SLEEP);
+            } else {
+                pacer.move(r, x, y, MOVE_SLEEP);
+            }
+        } finally {
+            held.unlock();
+        }
     }
     
     /**
@@ -151,8 +201,18 @@ public class Mouse {
      * @param amt number of notches to rotate. Negative indicates the wheel is moving away, positive indicates toward the user.
      */
     public void wheel(final int amt) {
-        r.mouseWheel(amt);
-        Time.sleep(MOVE_SLEEP);
+        final Lock held = lock;
+        held.lock();
+        try {
+            r.mouseWheel(amt);
+            if (pacer == null) {
+                Time.sleep(MOVE_SLEEP);
+            } else {
+                pacer.settle(r, Pacer.Action.WHEEL, MOVE_SLEEP);
+            }
+        } finally {
+            held.unlock();
+        }
     }
     
     /**
@@ -175,4 +235,46 @@ public class Mouse {
         MOVE_SLEEP = sleep;
     }
     
+    /**
+     *
+     * Replaces the fixed sleeps with pauses learned from how long the mouse takes to respond.
+     * 
+     * @param pacer pacer to time clicks and moves with, or null to go back to the fixed sleeps
+     * @see com.github.confiqure.input.Pacer
+     */
+    public void setPacer(final Pacer pacer) {
+        this.pacer = pacer;
+    }
+    
+    /**
+     *
+     * Shares a lock with the other mice and keyboards driving the same pointer, so that each move, click, drag and turn of the wheel completes before another one starts. The lock is held for the whole action, including its sleeps.
+     * 
+     * @param lock lock to hold during every action, or null for a lock of this mouse alone
+     * @see com.github.confiqure.session.Session#getInputLock()
+     */
+    public void setInputLock(final Lock lock) {
+        this.lock = lock == null ? new ReentrantLock() : lock;
+    }
+    
+    InputBackend backend() {
+        return r;
+    }
+    
+    long clickSleep() {
+        return pacer == null ? CLICK_SLEEP : pacer.getDelay(Pacer.Action.CLICK, CLICK_SLEEP);
+    }
+    
+    long moveSleep() {
+        return pacer == null ? MOVE_SLEEP : pacer.getDelay(Pacer.Action.MOVE, MOVE_SLEEP);
+    }
+    
+    private void pauseClick() {
+        if (pacer == null) {
+            Time.sleep(CLICK_SLEEP);
+        } else {
+            pacer.settle(r, Pacer.Action.CLICK, CLICK_SLEEP);
+        }
+    }
+    
 }
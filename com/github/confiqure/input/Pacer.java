@@ -0,0 +1,136 @@
+package com.github.confiqure.input;
+
+import com.github.confiqure.backend.InputBackend;
+import com.github.confiqure.util.Time;
+import java.awt.Point;
+
+/**
+ *
+ * Learns how long input takes to land instead of sleeping fixed amounts. After each event the backend is asked to wait until it is idle, and the time this took is fed into a rolling estimate kept per kind of action. The pause after an action is the smoothed latency plus four times its smoothed deviation, as TCP computes its retransmission timeout, kept between a floor and a ceiling. A loaded host widens the pause as soon as its latency grows or becomes erratic.
+ * <p>
+ * Waiting for the backend to be idle only drains the event queue of this JVM; it says nothing about when the target application has handled the event. Only mouse moves are confirmed, by polling the pointer until it arrives, so only moves converge on the floor on a quiet host. Clicks, key presses, typed characters and wheel turns have no observable effect to wait for, so their pause never drops below the sleep configured on the Mouse or Keyboard sending them and only grows beyond it. A pacer can be shared by a Mouse and a Keyboard and is safe for use by multiple threads.
+ * 
+ * @author Dylan Wheeler
+ */
+public class Pacer {
+    
+    /**
+     *
+     * Kind of input an estimate is kept for.
+     */
+    public enum Action {
+        CLICK(false), MOVE(true), PRESS(false), TYPE(false), WHEEL(false);
+
+        private final boolean confirmed;
+
+        Action(final boolean confirmed) {
+            this.confirmed = confirmed;
+        }
+    }
+    
+    private final long min, max;
+    private final double[] mean = new double[Action.values().length], deviation = new double[Action.values().length];
+    private final boolean[] measured = new boolean[Action.values().length];
+    
+    /**
+     *
+     * Creates new instance pausing between 5ms and 250ms.
+     * 
+     */
+    public Pacer() {
+        this(5, 250);
+    }
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param min shortest pause in milliseconds after any action
+     * @param max longest pause in milliseconds after any action, also the longest a move is waited for
+     */
+    public Pacer(final long min, final long max) {
+        if (min < 0 || max < min) throw new IllegalArgumentException("Invalid pause range: " + min + "-" + max);
+        this.min = min;
+        this.max = max;
+    }
+    
+    /**
+     *
+     * Returns the current pause after an action. Until an action has been measured, the fixed sleep is returned. Actions other than moves cannot be confirmed, so their pause is never shorter than the fixed sleep.
+     * 
+     * @param action kind of action
+     * @param sleep milliseconds the Mouse or Keyboard sleeps after the action without a pacer
+     * @return milliseconds to pause
+     */
+    public synchronized long getDelay(final Action action, final long sleep) {
+        final int i = action.ordinal();
+        double estimate = measured[i] ? (mean[i] + 4 * deviation[i]) / 1000000.0 : sleep;
+        //an idle local queue does not mean the event landed, so unconfirmed actions keep the configured sleep as their floor
+        if (!action.confirmed) estimate = Math.max(estimate, sleep);
+        return Math.max(min, Math.min(max, (long) Math.ceil(estimate)));
+    }
+    
+    /**
+     *
+     * Waits until an event sent to a backend has been handled and the pause for its kind of action has passed, and updates the estimate with the time the backend took.
+     * 
+     * @param backend backend the event was sent to
+     * @param action kind of action
+     * @param sleep milliseconds the Mouse or Keyboard sleeps after the action without a pacer
+     */
+    void settle(final InputBackend backend, final Action action, final long sleep) {
+        final long start = System.nanoTime();
+        backend.waitForIdle();
+        pause(action, start, System.nanoTime() - start, sleep);
+    }
+    
+    /**
+     *
+     * Moves the mouse and waits until the pointer is seen to have moved, or the ceiling has passed, before pausing. When the pointer cannot be located the move is not confirmed, so the fixed sleep is kept as the floor and the estimate is left alone.
+     * 
+     * @param backend backend to move the mouse with
+     * @param x x-coordinate to move to
+     * @param y y-coordinate to move to
+     * @param sleep milliseconds the Mouse sleeps after a move without a pacer
+     */
+    void move(final InputBackend backend, final int x, final int y, final long sleep) {
+        final Point before = backend.getMouseLocation();
+        final long start = System.nanoTime();
+        backend.mouseMove(x, y);
+        backend.waitForIdle();
+        final long deadline = start + max * 1000000L;
+        while (System.nanoTime() < deadline) {
+            final Point now = backend.getMouseLocation();
+            if (now == null) {
+                //the pointer left the backend's screen, so there is nothing to time the move by
+                final long remaining = Math.max(getDelay(Action.MOVE, sleep), sleep) - (System.nanoTime() - start) / 1000000L;
+                if (remaining > 0) Time.sleep(remaining);
+                return;
+            }
+            //scaled displays may not land on the exact pixel, any movement or a near hit confirms the move
+            if (now.distance(x, y) <= 2 || (before != null && !now.equals(before))) break;
+            Time.sleep(1);
+        }
+        pause(Action.MOVE, start, System.nanoTime() - start, sleep);
+    }
+    
+    private void pause(final Action action, final long start, final long latency, final long sleep) {
+        final long delay;
+        synchronized (this) {
+            final int i = action.ordinal();
+            if (measured[i]) {
+                //same gains as TCP: 1/8 for the mean, 1/4 for the deviation
+                deviation[i] += (Math.abs(latency - mean[i]) - deviation[i]) / 4;
+                mean[i] += (latency - mean[i]) / 8;
+            } else {
+                mean[i] = latency;
+                deviation[i] = latency / 2.0;
+                measured[i] = true;
+            }
+            delay = getDelay(action, sleep);
+        }
+        final long remaining = delay - (System.nanoTime() - start) / 1000000L;
+        if (remaining > 0) Time.sleep(remaining);
+    }
+    
+}
@@ -0,0 +1,163 @@
+package com.github.confiqure.input;
+
+import com.github.confiqure.backend.InputBackend;
+import com.github.confiqure.util.Time;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * Replays a timeline written by a Recorder. Events are read from the stream one at a time as they are due, so timelines of any length play in constant memory, and each event is sent at its exact moment relative to the start of playback rather than after a sleep, so timing does not drift. Playback can be sped up, and long idle gaps can be cut short.
+ * 
+ * @author Dylan Wheeler
+ * @see com.github.confiqure.input.Recorder
+ */
+public class Player {
+    
+    private double SPEED = 1;
+    private long MAX_GAP = Long.MAX_VALUE;
+    
+    /**
+     *
+     * Sets how much faster than recorded the timeline plays.
+     * 
+     * @param speed multiplier of the playback speed: 1 (real time) by default
+     */
+    public void setSpeed(final double speed) {
+        if (!(speed > 0)) throw new IllegalArgumentException("Speed must be positive: " + speed);
+        SPEED = speed;
+    }
+    
+    /**
+     *
+     * Sets the longest pause between two events. Longer gaps in the recording, such as waiting for a page to load, are cut to this length before the speed is applied.
+     * 
+     * @param millis longest gap in recorded milliseconds: unlimited by default
+     */
+    public void setMaxGap(final long millis) {
+        MAX_GAP = millis < 0 ? Long.MAX_VALUE : millis * 1000;
+    }
+    
+    /**
+     *
+     * Plays a timeline file.
+     * 
+     * @param file file written by a Recorder
+     * @param backend backend to send the events to, such as RobotBackend.get()
+     * @return number of events played
+     * @throws IOException if the file could not be read or is not a timeline
+     * @see java.io.File
+     */
+    public long play(final File file, final InputBackend backend) throws IOException {
+        try (final InputStream in = new FileInputStream(file)) {
+            return play(in, backend);
+        }
+    }
+    
+    /**
+     *
+     * Plays a timeline from a stream, blocking until the last event has been sent. Interrupting the thread stops playback. Playback stopped early, by an interrupt or a stream that cannot be read, releases every button and key it pressed and had not released yet.
+     * 
+     * @param stream stream of a timeline written by a Recorder
+     * @param backend backend to send the events to, such as RobotBackend.get()
+     * @return number of events played
+     * @throws IOException if the stream could not be read or is not a timeline
+     * @see java.io.InputStream
+     */
+    public long play(final InputStream stream, final InputBackend backend) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        if (in.readInt() != Recorder.MAGIC || in.readUnsignedByte() != Recorder.VERSION) {
+            throw new IOException("Not an input timeline");
+        }
+        final long start = System.nanoTime();
+        double due = 0;
+        long events = 0;
+        int x = 0, y = 0;
+        int op;
+        final List<Integer> buttons = new ArrayList<>(), keys = new ArrayList<>();
+        boolean finished = false;
+        try {
+            while ((op = in.read()) >= 0) {
+                final long delta = readVarLong(in);
+                //values are read before waiting so the stream is never read at the moment an event is due
+                final int a, b;
+                if (op == Recorder.MOVE) {
+                    a = x + unzigzag((int) readVarLong(in));
+                    b = y + unzigzag((int) readVarLong(in));
+                } else if (op == Recorder.WHEEL) {
+                    a = unzigzag((int) readVarLong(in));
+                    b = 0;
+                } else if (op <= Recorder.KEY_RELEASE) {
+                    a = (int) readVarLong(in);
+                    b = 0;
+                } else {
+                    throw new IOException("Unknown event " + op + " after " + events + " events");
+                }
+                due += Math.min(delta, MAX_GAP) * 1000 / SPEED;
+                if (!Time.sleepUntil(start + (long) due)) return events;
+                switch (op) {
+                    case Recorder.MOVE:
+                        backend.mouseMove(a, b);
+                        x = a;
+                        y = b;
+                        break;
+                    case Recorder.PRESS:
+                        backend.mousePress(a);
+                        buttons.add(a);
+                        break;
+                    case Recorder.RELEASE:
+                        backend.mouseRelease(a);
+                        buttons.remove((Integer) a);
+                        break;
+                    case Recorder.WHEEL:
+                        backend.mouseWheel(a);
+                        break;
+                    case Recorder.KEY_PRESS:
+                        backend.keyPress(a);
+                        keys.add(a);
+                        break;
+                    default:
+                        backend.keyRelease(a);
+                        keys.remove((Integer) a);
+                        break;
+                }
+                events++;
+            }
+            finished = true;
+        } finally {
+            //playback cut short must not leave a button or key held down, most recent press is released first
+            if (!finished) {
+                for (int i = keys.size() - 1; i >= 0; i--) {
+                    backend.keyRelease(keys.get(i));
+                }
+                for (int i = buttons.size() - 1; i >= 0; i--) {
+                    backend.mouseRelease(buttons.get(i));
+                }
+            }
+        }
+        return events;
+    }
+    
+    private static int unzigzag(final int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+    
+    private static long readVarLong(final DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b < 0) throw new EOFException("Timeline ends inside an event");
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed number in timeline");
+    }
+    
+}
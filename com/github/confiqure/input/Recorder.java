@@ -0,0 +1,159 @@
+package com.github.confiqure.input;
+
+import com.github.confiqure.backend.InputBackend;
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ *
+ * Backend that passes every event on to another backend and writes it to a timeline that a Player can replay. Give it to a Keyboard or Mouse to record everything they send.
+ * <p>
+ * The timeline is a header followed by one record per event: an opcode byte, the microseconds since the previous event, and the event's values. Numbers are written as variable-length integers, and mouse moves are stored relative to the previous move, so most events take three to five bytes.
+ * 
+ * @author Dylan Wheeler
+ * @see com.github.confiqure.input.Player
+ */
+public class Recorder implements InputBackend, AutoCloseable {
+    
+    static final int MAGIC = 0x4D524543, VERSION = 1;
+    static final int MOVE = 0, PRESS = 1, RELEASE = 2, WHEEL = 3, KEY_PRESS = 4, KEY_RELEASE = 5;
+    
+    private final InputBackend target;
+    private final DataOutputStream out;
+    private long last;
+    private int x = 0, y = 0;
+    
+    /**
+     *
+     * Creates new instance writing to a file.
+     * 
+     * @param target backend to pass events on to
+     * @param file file to write the timeline to
+     * @throws IOException if the file could not be opened
+     * @see java.io.File
+     */
+    public Recorder(final InputBackend target, final File file) throws IOException {
+        this(target, new FileOutputStream(file));
+    }
+    
+    /**
+     *
+     * Creates new instance writing to a stream. Recording starts immediately, so the first event is timed from here.
+     * 
+     * @param target backend to pass events on to
+     * @param out stream to write the timeline to, closed along with the recorder
+     * @throws IOException if the header could not be written
+     * @see java.io.OutputStream
+     */
+    public Recorder(final InputBackend target, final OutputStream out) throws IOException {
+        this.target = target;
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        last = System.nanoTime();
+    }
+    
+    @Override
+    public void mouseMove(final int x, final int y) {
+        target.mouseMove(x, y);
+        synchronized (this) {
+            write(MOVE, zigzag(x - this.x), zigzag(y - this.y));
+            this.x = x;
+            this.y = y;
+        }
+    }
+    
+    @Override
+    public void mousePress(final int buttons) {
+        target.mousePress(buttons);
+        write(PRESS, buttons);
+    }
+    
+    @Override
+    public void mouseRelease(final int buttons) {
+        target.mouseRelease(buttons);
+        write(RELEASE, buttons);
+    }
+    
+    @Override
+    public void mouseWheel(final int amt) {
+        target.mouseWheel(amt);
+        write(WHEEL, zigzag(amt));
+    }
+    
+    @Override
+    public void keyPress(final int key) {
+        target.keyPress(key);
+        write(KEY_PRESS, key);
+    }
+    
+    @Override
+    public void keyRelease(final int key) {
+        target.keyRelease(key);
+        write(KEY_RELEASE, key);
+    }
+    
+    @Override
+    public void waitForIdle() {
+        target.waitForIdle();
+    }
+    
+    @Override
+    public Point getMouseLocation() {
+        return target.getMouseLocation();
+    }
+    
+    /**
+     *
+     * Writes any buffered events.
+     * 
+     * @throws IOException if the events could not be written
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+    
+    /**
+     *
+     * Writes any buffered events and closes the stream.
+     * 
+     * @throws IOException if the events could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+    
+    private synchronized void write(final int op, final int... values) {
+        final long now = System.nanoTime();
+        try {
+            out.writeByte(op);
+            writeVarLong(out, (now - last) / 1000);
+            for (final int v : values) {
+                writeVarLong(out, v & 0xFFFFFFFFL);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        last = now;
+    }
+    
+    private static int zigzag(final int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+    
+    private static void writeVarLong(final DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+    
+}
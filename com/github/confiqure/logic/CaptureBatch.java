@@ -0,0 +1,225 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ *
+ * Collects needle searches, pixel reads and captures of small areas of the screen, then answers all of them from as few screen captures as possible. Areas are merged into one capture whenever grabbing their bounding box is cheaper than grabbing them separately, counting a fixed cost for every capture on top of its size.
+ * 
+ * @author Dylan Wheeler
+ */
+public class CaptureBatch {
+    
+    private final Images images;
+    private final List<Query<?>> queries = new ArrayList<>();
+    private long CAPTURE_COST = 1 << 18;
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param images instance of the Images class to take screenshots with
+     * @see com.github.confiqure.logic.Images
+     */
+    public CaptureBatch(final Images images) {
+        this.images = images;
+    }
+    
+    /**
+     *
+     * Adds a search for a needle within an area of the screen.
+     * 
+     * @param needle compiled image to search for
+     * @param area area on the screen to scan
+     * @return future completed by run() with the point on screen of the first match, or null if there is none
+     * @see java.awt.Rectangle
+     */
+    public CompletableFuture<Point> find(final Needle needle, final Rectangle area) {
+        return add(new Query<Point>(area) {
+            @Override
+            Point answer(final BufferedImage capture, final int x, final int y) {
+                final Point p = Matcher.find(Pixels.of(capture).getSubPixels(x, y, this.area.width, this.area.height), needle);
+                if (p != null) p.translate(this.area.x, this.area.y);
+                return p;
+            }
+        });
+    }
+    
+    /**
+     *
+     * Adds a read of a single pixel on the screen.
+     * 
+     * @param x x-coordinate of the pixel
+     * @param y y-coordinate of the pixel
+     * @return future completed by run() with the RGB value of the color in the default sRGB ColorModel
+     */
+    public CompletableFuture<Integer> pixel(final int x, final int y) {
+        return add(new Query<Integer>(new Rectangle(x, y, 1, 1)) {
+            @Override
+            Integer answer(final BufferedImage capture, final int x, final int y) {
+                return capture.getRGB(x, y);
+            }
+        });
+    }
+    
+    /**
+     *
+     * Adds a capture of an area of the screen.
+     * 
+     * @param area area on the screen to capture
+     * @return future completed by run() with the capture, which shares its pixels with the larger capture it was cut from
+     * @see java.awt.Rectangle
+     */
+    public CompletableFuture<BufferedImage> capture(final Rectangle area) {
+        return add(new Query<BufferedImage>(area) {
+            @Override
+            BufferedImage answer(final BufferedImage capture, final int x, final int y) {
+                return capture.getSubimage(x, y, this.area.width, this.area.height);
+            }
+        });
+    }
+    
+    /**
+     *
+     * Sets the fixed cost of a capture, expressed as the number of extra pixels it is worth grabbing to avoid one. Higher values merge more aggressively.
+     * 
+     * @param pixels cost of one capture in pixels: 262144 by default
+     */
+    public void setCaptureCost(final long pixels) {
+        CAPTURE_COST = pixels;
+    }
+    
+    /**
+     *
+     * Plans the captures needed to answer every pending query.
+     * 
+     * @return areas of the screen that would be captured
+     * @see java.awt.Rectangle
+     */
+    public List<Rectangle> plan() {
+        final List<Rectangle> areas = new ArrayList<>();
+        for (final Query<?> q : queries) {
+            if (!q.area.isEmpty()) areas.add(q.area);
+        }
+        return merge(areas, CAPTURE_COST);
+    }
+    
+    /**
+     *
+     * Groups areas into captures, greedily merging the pair that saves the most until no merge saves anything.
+     * 
+     * @param areas areas that must be captured
+     * @param captureCost fixed cost of one capture in pixels
+     * @return captures that together contain every area
+     */
+    static List<Rectangle> merge(final List<Rectangle> areas, final long captureCost) {
+        final List<Rectangle> grabs = new ArrayList<>();
+        for (final Rectangle r : areas) {
+            grabs.add(new Rectangle(r));
+        }
+        while (true) {
+            int bestA = -1, bestB = -1;
+            long bestSaving = 0;
+            for (int a = 0; a < grabs.size(); a++) {
+                for (int b = a + 1; b < grabs.size(); b++) {
+                    final Rectangle ra = grabs.get(a), rb = grabs.get(b);
+                    final long saving = cost(ra, captureCost) + cost(rb, captureCost) - cost(ra.union(rb), captureCost);
+                    if (saving > bestSaving) {
+                        bestSaving = saving;
+                        bestA = a;
+                        bestB = b;
+                    }
+                }
+            }
+            if (bestA < 0) break;
+            final Rectangle merged = grabs.get(bestA).union(grabs.get(bestB));
+            grabs.remove(bestB);
+            grabs.set(bestA, merged);
+        }
+        return grabs;
+    }
+    
+    /**
+     *
+     * Takes the planned captures and completes the future of every pending query, then empties the batch. If a capture fails, the futures it left pending are completed with the failure before it is thrown.
+     * 
+     */
+    public void run() {
+        try {
+            final List<Rectangle> grabs = plan();
+            final List<BufferedImage> captures = new ArrayList<>();
+            for (final Rectangle r : grabs) {
+                captures.add(images.screenshot(r));
+            }
+            for (final Query<?> q : queries) {
+                if (q.area.isEmpty()) {
+                    q.future.completeExceptionally(new IllegalArgumentException("Empty area: " + q.area));
+                    continue;
+                }
+                for (int i = 0; i < grabs.size(); i++) {
+                    final Rectangle r = grabs.get(i);
+                    if (r.contains(q.area)) {
+                        q.complete(captures.get(i), q.area.x - r.x, q.area.y - r.y);
+                        break;
+                    }
+                }
+            }
+        } catch (final RuntimeException | Error ex) {
+            for (final Query<?> q : queries) {
+                q.future.completeExceptionally(ex);
+            }
+            throw ex;
+        } finally {
+            queries.clear();
+        }
+    }
+    
+    private static long cost(final Rectangle r, final long captureCost) {
+        return captureCost + (long) r.width * r.height;
+    }
+    
+    private <T> CompletableFuture<T> add(final Query<T> query) {
+        queries.add(query);
+        return query.future;
+    }
+    
+    /**
+     *
+     * Pending query over an area of the screen.
+     */
+    private abstract static class Query<T> {
+
+        final Rectangle area;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Query(final Rectangle area) {
+            this.area = new Rectangle(area);
+        }
+
+        /**
+         *
+         * Computes the answer from a capture containing the query's area.
+         * 
+         * @param capture capture containing the area
+         * @param x x-coordinate of the area within the capture
+         * @param y y-coordinate of the area within the capture
+         * @return answer to complete the future with
+         */
+        abstract T answer(BufferedImage capture, int x, int y);
+
+        void complete(final BufferedImage capture, final int x, final int y) {
+            try {
+                future.complete(answer(capture, x, y));
+            } catch (final RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+
+    }
+    
+}
@@ -0,0 +1,232 @@
+package com.github.confiqure.logic;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *
+ * Captures the screen on a dedicated thread at a steady rate and publishes each capture to its subscribers. A subscriber that falls behind skips the frames it missed and receives only the newest one once it requests more, so no subscriber can hold up capturing or the others.
+ * 
+ * @author Dylan Wheeler
+ */
+public class CapturePipeline implements Flow.Publisher<BufferedImage>, AutoCloseable {
+    
+    private final Images images;
+    private final long period;
+    private final Executor executor;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicReference<BufferedImage> latest = new AtomicReference<>();
+    private ScheduledExecutorService capturer = null;
+    private volatile boolean closed = false;
+    
+    /**
+     *
+     * Creates new instance that delivers frames on the common pool.
+     * 
+     * @param images instance of the Images class to take screenshots with
+     * @param fps number of captures per second
+     * @see com.github.confiqure.logic.Images
+     */
+    public CapturePipeline(final Images images, final double fps) {
+        this(images, fps, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param images instance of the Images class to take screenshots with
+     * @param fps number of captures per second
+     * @param executor executor that frames are delivered to subscribers on
+     * @see com.github.confiqure.logic.Images
+     */
+    public CapturePipeline(final Images images, final double fps, final Executor executor) {
+        if (!(fps > 0)) throw new IllegalArgumentException("Frame rate must be positive: " + fps);
+        this.images = images;
+        this.period = Math.max(1, (long) (1000000000L / fps));
+        this.executor = executor;
+    }
+    
+    /**
+     *
+     * Starts capturing. Calling this on a running pipeline has no effect.
+     * 
+     */
+    public synchronized void start() {
+        if (closed) throw new IllegalStateException("Pipeline is closed");
+        if (capturer != null) return;
+        capturer = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread t = new Thread(task, "CapturePipeline");
+            t.setDaemon(true);
+            return t;
+        });
+        capturer.scheduleAtFixedRate(this::capture, 0, period, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     *
+     * Stops capturing and completes every subscriber.
+     * 
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (capturer != null) capturer.shutdownNow();
+        for (final Subscription s : subscriptions) {
+            s.complete();
+        }
+        subscriptions.clear();
+    }
+    
+    /**
+     *
+     * Returns the most recent capture without subscribing.
+     * 
+     * @return newest frame or null if nothing has been captured yet
+     */
+    public BufferedImage getLatest() {
+        return latest.get();
+    }
+    
+    @Override
+    public void subscribe(final Flow.Subscriber<? super BufferedImage> subscriber) {
+        final Subscription s = new Subscription(subscriber);
+        //frames are only offered once onSubscribe has returned, as Reactive Streams requires
+        subscriber.onSubscribe(s);
+        final boolean registered;
+        synchronized (this) {
+            registered = !closed && !s.done;
+            if (registered) subscriptions.add(s);
+        }
+        final BufferedImage frame = latest.get();
+        if (!registered) {
+            s.complete();
+        } else if (frame != null) {
+            s.offer(frame);
+        }
+    }
+    
+    private void capture() {
+        final BufferedImage frame;
+        try {
+            frame = images.screenshot();
+        } catch (final RuntimeException ex) {
+            for (final Subscription s : subscriptions) {
+                s.fail(ex);
+            }
+            subscriptions.clear();
+            return;
+        }
+        latest.set(frame);
+        for (final Subscription s : subscriptions) {
+            s.offer(frame);
+        }
+    }
+    
+    /**
+     *
+     * Link to one subscriber holding only the newest undelivered frame.
+     */
+    private final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super BufferedImage> subscriber;
+        private final AtomicReference<BufferedImage> pending = new AtomicReference<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done = false, completing = false;
+        private volatile Throwable error = null;
+
+        Subscription(final Flow.Subscriber<? super BufferedImage> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Requested frames must be positive: " + n));
+                return;
+            }
+            demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            pending.set(null);
+            subscriptions.remove(this);
+        }
+
+        void offer(final BufferedImage frame) {
+            //an undelivered frame is simply replaced, the subscriber only ever sees the newest
+            pending.set(frame);
+            drain();
+        }
+
+        void complete() {
+            completing = true;
+            drain();
+        }
+
+        void fail(final Throwable ex) {
+            error = ex;
+            completing = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) return;
+            try {
+                executor.execute(this::deliver);
+            } catch (final RejectedExecutionException ex) {
+                //nothing can be delivered any more, so the subscriber is failed here instead of on the executor
+                final boolean failed = !done;
+                done = true;
+                pending.set(null);
+                subscriptions.remove(this);
+                wip.set(0);
+                if (failed) subscriber.onError(ex);
+            }
+        }
+
+        private void deliver() {
+            int missed = 1;
+            do {
+                while (!done && demand.get() > 0) {
+                    final BufferedImage frame = pending.getAndSet(null);
+                    if (frame == null) break;
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(frame);
+                    } catch (final RuntimeException ex) {
+                        cancel();
+                        subscriber.onError(ex);
+                    }
+                }
+                if (!done && completing) {
+                    done = true;
+                    subscriptions.remove(this);
+                    if (error == null) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onError(error);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+    }
+    
+}
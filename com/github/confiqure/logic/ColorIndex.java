@@ -0,0 +1,171 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+
+/**
+ *
+ * Set of the colors present in an image, along with where each first appears. The index is built in a single pass, after which any number of color queries are answered without scanning the image again.
+ * 
+ * @author Dylan Wheeler
+ */
+public class ColorIndex {
+    
+    private final int width;
+    private int[] colors, firsts;
+    private boolean[] used;
+    private int size = 0;
+    
+    /**
+     *
+     * Creates new instance from a BufferedImage.
+     * 
+     * @param image image to index
+     * @see java.awt.image.BufferedImage
+     */
+    public ColorIndex(final BufferedImage image) {
+        this(Pixels.of(image));
+    }
+    
+    /**
+     *
+     * Creates new instance from Pixels.
+     * 
+     * @param pixels pixels to index
+     */
+    public ColorIndex(final Pixels pixels) {
+        width = pixels.getWidth();
+        colors = new int[1024];
+        firsts = new int[1024];
+        used = new boolean[1024];
+        final int[] data = pixels.data();
+        final int fill = pixels.fill();
+        boolean any = false;
+        int last = 0;
+        for (int y = 0; y < pixels.getHeight(); y++) {
+            final int row = pixels.offset() + y * pixels.scanline();
+            for (int x = 0; x < width; x++) {
+                final int rgb = data[row + x] | fill;
+                //runs of one color are common on screen and only need a single lookup
+                if (any && rgb == last) continue;
+                any = true;
+                last = rgb;
+                add(rgb, y * width + x);
+            }
+        }
+    }
+    
+    /**
+     *
+     * Checks if the image contains a pixel color.
+     * 
+     * @param rgb pixel RGB integer to search for
+     * @return true if the color is contained within the image
+     */
+    public boolean contains(final int rgb) {
+        return slot(rgb) >= 0;
+    }
+    
+    /**
+     *
+     * Checks if the image contains at least one of several pixel colors.
+     * 
+     * @param rgbs pixel RGB integers to search for
+     * @return true if any of the colors is contained within the image
+     */
+    public boolean containsAny(final int... rgbs) {
+        for (final int rgb : rgbs) {
+            if (contains(rgb)) return true;
+        }
+        return false;
+    }
+    
+    /**
+     *
+     * Checks if the image contains every one of several pixel colors.
+     * 
+     * @param rgbs pixel RGB integers to search for
+     * @return true if all of the colors are contained within the image
+     */
+    public boolean containsAll(final int... rgbs) {
+        for (final int rgb : rgbs) {
+            if (!contains(rgb)) return false;
+        }
+        return true;
+    }
+    
+    /**
+     *
+     * Returns where a pixel color first appears in the image.
+     * 
+     * @param rgb pixel RGB integer to search for
+     * @return first point, scanning top to bottom and then left to right, with the color or null if it is not contained within the image
+     */
+    public Point firstLocationOf(final int rgb) {
+        final int slot = slot(rgb);
+        if (slot < 0) return null;
+        return new Point(firsts[slot] % width, firsts[slot] / width);
+    }
+    
+    /**
+     *
+     * Returns the number of distinct colors in the image.
+     * 
+     * @return number of colors
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     *
+     * Finds the slot holding a color.
+     * 
+     * @param rgb color to look up
+     * @return index into the tables or -1 if the color is absent
+     */
+    private int slot(final int rgb) {
+        final int mask = colors.length - 1;
+        for (int i = mix(rgb) & mask; used[i]; i = (i + 1) & mask) {
+            if (colors[i] == rgb) return i;
+        }
+        return -1;
+    }
+    
+    /**
+     *
+     * Records a color unless it has been seen before, growing the tables when they become half full.
+     * 
+     * @param rgb color to record
+     * @param first position of the pixel, row by row
+     */
+    private void add(final int rgb, final int first) {
+        final int mask = colors.length - 1;
+        int i = mix(rgb) & mask;
+        for (; used[i]; i = (i + 1) & mask) {
+            if (colors[i] == rgb) return;
+        }
+        used[i] = true;
+        colors[i] = rgb;
+        firsts[i] = first;
+        if (++size * 2 > colors.length) grow();
+    }
+    
+    private void grow() {
+        final int[] oldColors = colors, oldFirsts = firsts;
+        final boolean[] oldUsed = used;
+        colors = new int[oldColors.length * 2];
+        firsts = new int[oldColors.length * 2];
+        used = new boolean[oldColors.length * 2];
+        size = 0;
+        for (int i = 0; i < oldColors.length; i++) {
+            if (oldUsed[i]) add(oldColors[i], oldFirsts[i]);
+        }
+    }
+    
+    private static int mix(final int rgb) {
+        final int h = rgb * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+}
@@ -0,0 +1,128 @@
+package com.github.confiqure.logic;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ *
+ * Captured image whose pixels are borrowed from a FramePool. Closing the frame hands the pixels back to the pool, so it should be used with try-with-resources and not touched once closed.
+ * 
+ * @author Dylan Wheeler
+ */
+public final class Frame implements AutoCloseable {
+    
+    private final FramePool pool;
+    private final int[] data;
+    private Pixels pixels;
+    private Rectangle bounds;
+    private Pyramid pyramid = null;
+    private boolean closed = false;
+    
+    Frame(final FramePool pool, final int[] data, final int width, final int height) {
+        this.pool = pool;
+        this.data = data;
+        pixels = new Pixels(data, width, height);
+        bounds = new Rectangle(0, 0, width, height);
+    }
+    
+    /**
+     *
+     * Returns the pixels of the frame.
+     * 
+     * @return pixels backed by the pooled array
+     */
+    public Pixels getPixels() {
+        return pixels;
+    }
+    
+    /**
+     *
+     * Returns the pixels of the frame prepared for coarse-to-fine searches. The pyramid is created on first use and shared by every search until the frame is reused for another capture.
+     * 
+     * @return pyramid over the pixels of the frame
+     * @see com.github.confiqure.logic.Pyramid
+     */
+    public synchronized Pyramid getPyramid() {
+        if (pyramid == null) pyramid = new Pyramid(pixels);
+        return pyramid;
+    }
+    
+    /**
+     *
+     * Returns the area of the screen the frame was captured from.
+     * 
+     * @return bounds of the capture
+     * @see java.awt.Rectangle
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+    
+    /**
+     *
+     * Returns the width of the frame.
+     * 
+     * @return width in pixels
+     */
+    public int getWidth() {
+        return pixels.getWidth();
+    }
+    
+    /**
+     *
+     * Returns the height of the frame.
+     * 
+     * @return height in pixels
+     */
+    public int getHeight() {
+        return pixels.getHeight();
+    }
+    
+    /**
+     *
+     * Copies the frame into a new BufferedImage, for instance to save it.
+     * 
+     * @return copy of the frame
+     * @see java.awt.image.BufferedImage
+     */
+    public BufferedImage toImage() {
+        //pixels copied from a TYPE_INT_RGB capture have no alpha, so they go back into the same type
+        final BufferedImage image = new BufferedImage(getWidth(), getHeight(), pixels.fill() == 0 ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        final int[] target = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < getHeight(); y++) {
+            System.arraycopy(data, pixels.offset() + y * pixels.scanline(), target, y * getWidth(), getWidth());
+        }
+        return image;
+    }
+    
+    int[] data() {
+        return data;
+    }
+    
+    /**
+     *
+     * Marks the frame as holding a new capture written straight into its array.
+     * 
+     * @param bounds area of the screen the pixels were captured from
+     */
+    void captured(final Rectangle bounds) {
+        //captures are opaque whatever the backend left in the alpha byte
+        pixels = new Pixels(data, 0, getWidth(), getWidth(), getHeight(), 0xFF000000);
+        pyramid = null;
+        this.bounds = new Rectangle(bounds);
+    }
+    
+    /**
+     *
+     * Returns the pixels of the frame to its pool. Closing a frame more than once has no effect.
+     * 
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        pool.release(data);
+    }
+    
+}
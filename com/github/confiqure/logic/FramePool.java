@@ -0,0 +1,76 @@
+package com.github.confiqure.logic;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ *
+ * Pool of pixel arrays recycled between screen captures. Keeping a few full-screen arrays alive and reusing them avoids allocating a new one for every frame, for screen backends that can write captures into them. Instances are safe for use by multiple threads.
+ * 
+ * @author Dylan Wheeler
+ */
+public class FramePool {
+    
+    private final ArrayDeque<int[]> idle = new ArrayDeque<>();
+    private final int maxIdle;
+    
+    /**
+     *
+     * Creates new instance that keeps up to 4 idle arrays.
+     * 
+     */
+    public FramePool() {
+        this(4);
+    }
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param maxIdle largest number of released arrays kept for reuse
+     */
+    public FramePool(final int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+    
+    /**
+     *
+     * Takes a Frame from the pool, reusing a released array when one is large enough. The pixels of a reused frame are left as they were.
+     * 
+     * @param width width of the frame
+     * @param height height of the frame
+     * @return frame that returns its array to the pool when closed
+     */
+    public Frame acquire(final int width, final int height) {
+        final int length = width * height;
+        synchronized (idle) {
+            for (final Iterator<int[]> it = idle.iterator(); it.hasNext();) {
+                final int[] data = it.next();
+                if (data.length >= length) {
+                    it.remove();
+                    return new Frame(this, data, width, height);
+                }
+            }
+        }
+        return new Frame(this, new int[length], width, height);
+    }
+    
+    /**
+     *
+     * Returns the number of arrays waiting to be reused.
+     * 
+     * @return number of idle arrays
+     */
+    public int getIdle() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+    
+    void release(final int[] data) {
+        synchronized (idle) {
+            if (idle.size() < maxIdle) idle.addFirst(data);
+        }
+    }
+    
+}
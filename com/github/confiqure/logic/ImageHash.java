@@ -0,0 +1,121 @@
+package com.github.confiqure.logic;
+
+import java.awt.image.BufferedImage;
+
+/**
+ *
+ * Hashes of image contents. The content hash changes with any pixel and is meant for exact comparisons; the perceptual hash only changes with the overall shape of an image, so similar images have hashes a small Hamming distance apart.
+ * 
+ * @author Dylan Wheeler
+ */
+public class ImageHash {
+    
+    private static final long PRIME1 = 0x9E3779B185EBCA87L, PRIME2 = 0xC2B2AE3D27D4EB4FL, PRIME3 = 0x165667B19E3779F9L;
+    
+    /**
+     *
+     * Computes a 64-bit hash of the size and every pixel of a BufferedImage.
+     * 
+     * @param image image to hash
+     * @return content hash
+     * @see java.awt.image.BufferedImage
+     */
+    public static long hash(final BufferedImage image) {
+        return hash(Pixels.of(image));
+    }
+    
+    /**
+     *
+     * Computes a 64-bit hash of the size and every pixel of an image. Four lanes are mixed in parallel with the xxHash64 primes, so hashing runs close to memory speed.
+     * 
+     * @param pixels pixels to hash
+     * @return content hash
+     */
+    public static long hash(final Pixels pixels) {
+        final int[] data = pixels.data();
+        final int fill = pixels.fill(), width = pixels.getWidth();
+        long a = PRIME1 + PRIME2, b = PRIME2, c = 0, d = -PRIME1;
+        for (int y = 0; y < pixels.getHeight(); y++) {
+            final int row = pixels.offset() + y * pixels.scanline();
+            int x = 0;
+            for (; x + 3 < width; x += 4) {
+                a = round(a, data[row + x] | fill);
+                b = round(b, data[row + x + 1] | fill);
+                c = round(c, data[row + x + 2] | fill);
+                d = round(d, data[row + x + 3] | fill);
+            }
+            for (; x < width; x++) {
+                a = round(a, data[row + x] | fill);
+            }
+        }
+        long h = Long.rotateLeft(a, 1) + Long.rotateLeft(b, 7) + Long.rotateLeft(c, 12) + Long.rotateLeft(d, 18);
+        h ^= ((long) width << 32) | pixels.getHeight();
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        return h ^ (h >>> 32);
+    }
+    
+    /**
+     *
+     * Computes a 64-bit difference hash of a BufferedImage.
+     * 
+     * @param image image to hash
+     * @return perceptual hash
+     * @see java.awt.image.BufferedImage
+     */
+    public static long perceptualHash(final BufferedImage image) {
+        return perceptualHash(Pixels.of(image));
+    }
+    
+    /**
+     *
+     * Computes a 64-bit difference hash of an image. The image is shrunk to 9 by 8 gray cells and each bit records whether a cell is brighter than its right neighbor.
+     * 
+     * @param pixels pixels to hash
+     * @return perceptual hash
+     */
+    public static long perceptualHash(final Pixels pixels) {
+        final long[] cells = new long[72];
+        final int width = pixels.getWidth(), height = pixels.getHeight();
+        for (int cy = 0; cy < 8; cy++) {
+            final int y0 = cy * height / 8, y1 = Math.max(y0 + 1, (cy + 1) * height / 8);
+            for (int cx = 0; cx < 9; cx++) {
+                final int x0 = cx * width / 9, x1 = Math.max(x0 + 1, (cx + 1) * width / 9);
+                long sum = 0;
+                for (int y = y0; y < Math.min(y1, height); y++) {
+                    for (int x = x0; x < Math.min(x1, width); x++) {
+                        final int rgb = pixels.getRGB(x, y);
+                        sum += ((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114;
+                    }
+                }
+                cells[cy * 9 + cx] = sum / Math.max(1, (x1 - x0) * (y1 - y0));
+            }
+        }
+        long hash = 0;
+        for (int cy = 0; cy < 8; cy++) {
+            for (int cx = 0; cx < 8; cx++) {
+                hash = (hash << 1) | (cells[cy * 9 + cx] > cells[cy * 9 + cx + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+    
+    /**
+     *
+     * Counts the bits that differ between two hashes.
+     * 
+     * @param a first hash
+     * @param b second hash
+     * @return Hamming distance from 0 (identical) to 64
+     */
+    public static int distance(final long a, final long b) {
+        return Long.bitCount(a ^ b);
+    }
+    
+    private static long round(final long lane, final int value) {
+        return Long.rotateLeft(lane + value * PRIME2, 31) * PRIME1;
+    }
+    
+}
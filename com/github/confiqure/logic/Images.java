@@ -1,12 +1,20 @@
 package com.github.confiqure.logic;
 
+import com.github.confiqure.backend.RobotBackend;
+import com.github.confiqure.backend.ScreenBackend;
+import com.github.confiqure.util.Time;
 import java.awt.AWTException;
 import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.Robot;
-import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  *
@@ -17,18 +25,32 @@ import java.awt.image.BufferedImage;
 public class Images {
     
     private final Dimension d;
-    private final Robot r;
+    private final ScreenBackend r;
+    private long CACHE_TIME = 0;
+    private BufferedImage cache = null;
+    private long cachedAt = 0;
     
     /**
      *
-     * Creates new instance of Images.
+     * Creates new instance of Images using the shared Robot.
      * 
      * @throws AWTException if the Robot could not be instanced
-     * @see java.awt.Robot
+     * @see com.github.confiqure.backend.RobotBackend#get()
      */
     public Images() throws AWTException {
-        d = Toolkit.getDefaultToolkit().getScreenSize();
-        r = new Robot();
+        this(RobotBackend.get());
+    }
+    
+    /**
+     *
+     * Creates new instance of Images reading the screen from a backend.
+     * 
+     * @param backend backend to take captures with
+     * @see com.github.confiqure.backend.ScreenBackend
+     */
+    public Images(final ScreenBackend backend) {
+        r = backend;
+        d = backend.getScreenSize();
     }
     
     /**
@@ -52,28 +74,60 @@ public class Images {
      * @return the RGB value of the color in the default sRGB ColorModel
      */
     public int getColorOnScreen(final int x, final int y) {
-        return r.getPixelColor(x, y).getRGB();
+        final BufferedImage cached = cached();
+        if (cached != null && x >= 0 && y >= 0 && x < cached.getWidth() && y < cached.getHeight()) {
+            return cached.getRGB(x, y);
+        }
+        return r.getPixelColor(x, y);
+    }
+    
+    /**
+     *
+     * Returns the colors of many pixels on screen, read from one or a few captures rather than one at a time. Create a PixelProbe instead when the same pixels are read repeatedly.
+     * 
+     * @param xs x-coordinates of the pixels
+     * @param ys y-coordinates of the pixels
+     * @param out array receiving the RGB value of each pixel in the default sRGB ColorModel
+     * @return out
+     * @see com.github.confiqure.logic.PixelProbe
+     */
+    public int[] getColorsOnScreen(final int[] xs, final int[] ys, final int[] out) {
+        return new PixelProbe(this, xs, ys).read(out);
     }
         
     /**
      *
-     * Creates a screen capture of the entire display.
+     * Creates a screen capture of the entire display. If a cache time is set, a capture taken within that time is returned instead.
      * 
      * @return a screen capture of the entire screen
      */
     public BufferedImage screenshot() {
-        return r.createScreenCapture(new Rectangle(0, 0, d.width, d.height));
+        BufferedImage cached = cached();
+        if (cached == null) {
+            cached = r.createScreenCapture(new Rectangle(0, 0, d.width, d.height));
+            if (CACHE_TIME > 0) {
+                synchronized (this) {
+                    cache = cached;
+                    cachedAt = Time.millis();
+                }
+            }
+        }
+        return cached;
     }
     
     /**
      *
-     * Creates a screen capture of a specific part of the display.
+     * Creates a screen capture of a specific part of the display. If a cache time is set and a capture of the entire display was taken within that time, the area is cut from it instead.
      * 
      * @param rect bounds to take screen shot
      * @return a screen capture of the entire screen
      * @see java.awt.Rectangle
      */
     public BufferedImage screenshot(final Rectangle rect) {
+        final BufferedImage cached = cached();
+        if (cached != null && new Rectangle(0, 0, cached.getWidth(), cached.getHeight()).contains(rect) && !rect.isEmpty()) {
+            return cached.getSubimage(rect.x, rect.y, rect.width, rect.height);
+        }
         return r.createScreenCapture(rect);
     }
     
@@ -91,6 +145,74 @@ public class Images {
         return screenshot(new Rectangle(x, y, width, height));
     }
     
+    /**
+     *
+     * Sets how long a capture of the entire display is reused by later captures and pixel reads. Images returned from the cache are shared, so they must not be modified.
+     * 
+     * @param millis milliseconds a capture stays fresh: 0ms (no caching) by default
+     */
+    public void setCacheTime(final long millis) {
+        CACHE_TIME = millis;
+        if (millis <= 0) invalidate();
+    }
+    
+    /**
+     *
+     * Discards the cached capture so that the next capture reads the screen again. Call this after input that changes the screen.
+     * 
+     */
+    public synchronized void invalidate() {
+        cache = null;
+    }
+    
+    /**
+     *
+     * Returns the cached capture if it is still fresh.
+     * 
+     * @return capture of the entire display or null if there is none
+     */
+    private synchronized BufferedImage cached() {
+        if (cache != null && Time.millis() - cachedAt > CACHE_TIME) cache = null;
+        return cache;
+    }
+    
+    /**
+     *
+     * Captures the entire display into a Frame borrowed from a pool. Only screen backends that write captures into an existing array, such as MemoryBackend, support this; java.awt.Robot always allocates a new image, so Robot-backed instances should use screenshot() instead.
+     * 
+     * @param pool pool to take the frame from
+     * @return a capture of the entire screen, to be closed once no longer needed
+     * @throws UnsupportedOperationException if the screen backend cannot write into an array
+     * @see com.github.confiqure.logic.FramePool
+     */
+    public Frame capture(final FramePool pool) {
+        return capture(new Rectangle(0, 0, d.width, d.height), pool);
+    }
+    
+    /**
+     *
+     * Captures a specific part of the display into a Frame borrowed from a pool. Only screen backends that write captures into an existing array, such as MemoryBackend, support this; java.awt.Robot always allocates a new image, so Robot-backed instances should use screenshot() instead.
+     * 
+     * @param rect bounds to capture
+     * @param pool pool to take the frame from
+     * @return a capture of the specified rectangle of the screen, to be closed once no longer needed
+     * @throws UnsupportedOperationException if the screen backend cannot write into an array
+     * @see com.github.confiqure.logic.FramePool
+     */
+    public Frame capture(final Rectangle rect, final FramePool pool) {
+        if (rect.isEmpty()) throw new IllegalArgumentException("Empty area: " + rect);
+        if (!r.createScreenCapture(rect, null)) throw new UnsupportedOperationException("Screen backend cannot capture into an array");
+        final Frame frame = pool.acquire(rect.width, rect.height);
+        final BufferedImage cached = cached();
+        if (cached != null && new Rectangle(0, 0, cached.getWidth(), cached.getHeight()).contains(rect)) {
+            cached.getRGB(rect.x, rect.y, rect.width, rect.height, frame.data(), 0, rect.width);
+        } else {
+            r.createScreenCapture(rect, frame.data());
+        }
+        frame.captured(rect);
+        return frame;
+    }
+    
     /**
      *
      * Checks if a larger BufferedImage contains a smaller BufferedImage.
@@ -104,6 +226,33 @@ public class Images {
         return getContainsPoint(haystack, needle) != null;
     }
     
+    /**
+     *
+     * Checks if a Frame contains a compiled Needle.
+     * 
+     * @param frame captured frame to search
+     * @param needle compiled image to search for
+     * @return true if the needle is contained within the frame
+     * @see com.github.confiqure.logic.Frame
+     */
+    public static boolean contains(final Frame frame, final Needle needle) {
+        return getContainsPoint(frame, needle) != null;
+    }
+    
+    /**
+     *
+     * Checks if a Frame contains a pixel color.
+     * 
+     * @param frame captured frame to search
+     * @param needle pixel RGB integer to search for
+     * @return true if the pixel color is contained within the frame
+     * @see com.github.confiqure.logic.Frame
+     */
+    public static boolean contains(final Frame frame, final int needle) {
+        if (frame == null) return false;
+        return Matcher.contains(frame.getPixels(), needle);
+    }
+    
     /**
      *
      * Checks if the current screen contains a smaller BufferedImage.
@@ -129,36 +278,270 @@ public class Images {
         return getContainsPoint(screenshot(area), needle) != null;
     }
     
+    /**
+     *
+     * Checks if a larger BufferedImage contains a compiled Needle.
+     * 
+     * @param haystack image to search
+     * @param needle compiled image to search for
+     * @return true if the needle is contained within the larger image
+     * @see java.awt.image.BufferedImage
+     */
+    public static boolean contains(final BufferedImage haystack, final Needle needle) {
+        return getContainsPoint(haystack, needle) != null;
+    }
+    
+    /**
+     *
+     * Checks if the current screen contains a compiled Needle.
+     * 
+     * @param needle compiled image to search for
+     * @return true if the needle is contained within the current screen
+     */
+    public boolean contains(final Needle needle) {
+        return getContainsPoint(screenshot(), needle) != null;
+    }
+    
+    /**
+     *
+     * Checks if an area on the current screen contains a compiled Needle.
+     * 
+     * @param needle compiled image to search for
+     * @param area area on the screen to scan
+     * @return true if the needle is contained within the area defined on the current screen
+     * @see java.awt.Rectangle
+     */
+    public boolean contains(final Needle needle, final Rectangle area) {
+        return getContainsPoint(screenshot(area), needle) != null;
+    }
+    
+    /**
+     *
+     * Checks if the current screen contains the needle of an IncrementalSearch. Only the parts of the screen that changed since the search last ran are scanned again.
+     * 
+     * @param search search holding the needle and the previous frame
+     * @return true if the needle is contained within the current screen
+     * @see com.github.confiqure.logic.IncrementalSearch
+     */
+    public boolean contains(final IncrementalSearch search) {
+        return search.find(screenshot()) != null;
+    }
+    
     /**
      *
      * Returns Point where the smaller BufferedImage is contained within the larger BufferedImage.
      * 
      * @param haystack image to search
      * @param needle image to search for
-     * @return point where the smaller BufferedImage is represented in the larger BufferedImage or null if needle is not a subset of haystack
+     * @return first point, scanning top to bottom and then left to right, where the smaller BufferedImage is represented in the larger BufferedImage or null if needle is not a subset of haystack
      * @see java.awt.image.BufferedImage
      */
     public static Point getContainsPoint(final BufferedImage haystack, final BufferedImage needle) {
         if (haystack == null || needle == null) return null;
-        //loop through each of haystack's pixels
-        for (int offX = 0; offX < haystack.getWidth() - needle.getWidth(); offX++) {
-            for (int offY = 0; offY <= haystack.getHeight() - needle.getHeight(); offY++) {
-                //loop through each of needle's pixels
-                next: for (int imgX = 0; imgX < needle.getWidth(); imgX++) {
-                    for (int imgY = 0; imgY < needle.getHeight(); imgY++) {
-                        //if there is a discrepancy, break out and move on to next set of pixels
-                        if (haystack.getRGB(imgX + offX, imgY + offY) != needle.getRGB(imgX, imgY)) {
-                            break next;
-                        }
-                    }
-                    //if we've reached the end, return true
-                    if (imgX + 1 == needle.getWidth()) {
-                        return new Point(offX, offY);
-                    }
-                }
-            }
-        }
-        return null;
+        return Matcher.find(Pixels.of(haystack), Pixels.of(needle));
+    }
+    
+    /**
+     *
+     * Returns Point where a tracked needle is contained on the screen, searching around where it was last found before scanning the entire screen.
+     * 
+     * @param tracker tracker of the needle to search for
+     * @return point on screen where the needle is represented or null if there is none
+     * @see com.github.confiqure.logic.Tracker
+     */
+    public Point getContainsPoint(final Tracker tracker) {
+        return tracker.find(screenshot());
+    }
+    
+    /**
+     *
+     * Returns Point where the smaller BufferedImage is contained within the larger BufferedImage, splitting the search into bands of rows that run in parallel. Small haystacks are searched on the calling thread.
+     * 
+     * @param haystack image to search
+     * @param needle image to search for
+     * @param pool pool to search on, or null for the common pool
+     * @return first point, scanning top to bottom and then left to right, where the smaller BufferedImage is represented in the larger BufferedImage or null if needle is not a subset of haystack
+     * @see java.awt.image.BufferedImage
+     * @see java.util.concurrent.ForkJoinPool
+     */
+    public static Point getContainsPoint(final BufferedImage haystack, final BufferedImage needle, final ForkJoinPool pool) {
+        if (haystack == null || needle == null) return null;
+        return getContainsPoint(haystack, new Needle(needle), pool);
+    }
+    
+    /**
+     *
+     * Returns Point where a compiled Needle is contained within a larger BufferedImage, splitting the search into bands of rows that run in parallel. Small haystacks are searched on the calling thread.
+     * 
+     * @param haystack image to search
+     * @param needle compiled image to search for
+     * @param pool pool to search on, or null for the common pool
+     * @return first point, scanning top to bottom and then left to right, where the needle is represented in the larger BufferedImage or null if needle is not a subset of haystack
+     * @see java.awt.image.BufferedImage
+     * @see java.util.concurrent.ForkJoinPool
+     */
+    public static Point getContainsPoint(final BufferedImage haystack, final Needle needle, final ForkJoinPool pool) {
+        if (haystack == null || needle == null) return null;
+        return ParallelMatcher.find(Pixels.of(haystack), needle, pool == null ? ForkJoinPool.commonPool() : pool);
+    }
+    
+    /**
+     *
+     * Returns Point where a compiled Needle is contained within a larger BufferedImage. Compile needles that are searched for repeatedly once and reuse them.
+     * 
+     * @param haystack image to search
+     * @param needle compiled image to search for
+     * @return first point, scanning top to bottom and then left to right, where the needle is represented in the larger BufferedImage or null if needle is not a subset of haystack
+     * @see java.awt.image.BufferedImage
+     */
+    public static Point getContainsPoint(final BufferedImage haystack, final Needle needle) {
+        if (haystack == null || needle == null) return null;
+        return Matcher.find(Pixels.of(haystack), needle);
+    }
+    
+    /**
+     *
+     * Returns Point where the smaller BufferedImage is contained within the larger BufferedImage, allowing each color channel of every pixel to differ by a tolerance. Useful for anti-aliased or compressed images that never match exactly.
+     * 
+     * @param haystack image to search
+     * @param needle image to search for
+     * @param tolerance largest allowed difference (0-255) of the red, green or blue channel of any pixel
+     * @return first point, scanning top to bottom and then left to right, where the smaller BufferedImage is represented in the larger BufferedImage or null if there is none
+     * @see java.awt.image.BufferedImage
+     */
+    public static Point getContainsPoint(final BufferedImage haystack, final BufferedImage needle, final int tolerance) {
+        if (haystack == null || needle == null) return null;
+        return Matcher.find(Pixels.of(haystack), Pixels.of(needle), tolerance);
+    }
+    
+    /**
+     *
+     * Returns Point where the smaller BufferedImage most closely matches the larger BufferedImage. The error of a location is the sum of the absolute differences of the red, green and blue channels of every pixel.
+     * 
+     * @param haystack image to search
+     * @param needle image to search for
+     * @param maxError largest total error accepted as a match
+     * @return point of the closest match or null if no location is within maxError
+     * @see java.awt.image.BufferedImage
+     */
+    public static Point findBest(final BufferedImage haystack, final BufferedImage needle, final long maxError) {
+        return findBest(haystack, needle, maxError, false);
+    }
+    
+    /**
+     *
+     * Returns Point where the smaller BufferedImage most closely matches the larger BufferedImage. Locations are abandoned as soon as their running error exceeds the best found so far.
+     * 
+     * @param haystack image to search
+     * @param needle image to search for
+     * @param maxError largest total error accepted as a match
+     * @param squared true to sum squared channel differences, false to sum absolute channel differences
+     * @return point of the closest match or null if no location is within maxError
+     * @see java.awt.image.BufferedImage
+     */
+    public static Point findBest(final BufferedImage haystack, final BufferedImage needle, final long maxError, final boolean squared) {
+        if (haystack == null || needle == null) return null;
+        return Matcher.findBest(Pixels.of(haystack), Pixels.of(needle), maxError, squared);
+    }
+    
+    /**
+     *
+     * Returns Point where a compiled Needle is contained within a Frame.
+     * 
+     * @param frame captured frame to search
+     * @param needle compiled image to search for
+     * @return first point, scanning top to bottom and then left to right, where the needle is represented in the frame or null if there is none
+     * @see com.github.confiqure.logic.Frame
+     */
+    public static Point getContainsPoint(final Frame frame, final Needle needle) {
+        if (frame == null || needle == null) return null;
+        return Matcher.find(frame.getPixels(), needle);
+    }
+    
+    /**
+     *
+     * Returns Point where a compiled Needle is contained within a Pyramid, searching a shrunken copy of the haystack first and comparing at full size only where it matches. Reuse the pyramid, or use Frame.getPyramid(), to search the same screenshot for several needles.
+     * 
+     * @param haystack pyramid of the image to search
+     * @param needle compiled image to search for
+     * @return first point, scanning top to bottom and then left to right, where the needle is represented in the haystack or null if there is none
+     * @see com.github.confiqure.logic.Pyramid
+     */
+    public static Point getContainsPoint(final Pyramid haystack, final Needle needle) {
+        if (haystack == null || needle == null) return null;
+        return haystack.find(needle);
+    }
+    
+    /**
+     *
+     * Returns Point where a compiled Needle is contained within a Pyramid, allowing each color channel of every pixel to differ by a tolerance.
+     * 
+     * @param haystack pyramid of the image to search
+     * @param needle compiled image to search for
+     * @param tolerance largest allowed difference (0-255) of the red, green or blue channel of any pixel
+     * @return first point, scanning top to bottom and then left to right, where the needle is represented in the haystack or null if there is none
+     * @see com.github.confiqure.logic.Pyramid
+     */
+    public static Point getContainsPoint(final Pyramid haystack, final Needle needle, final int tolerance) {
+        if (haystack == null || needle == null || tolerance < 0) return null;
+        return haystack.find(needle, tolerance);
+    }
+    
+    /**
+     *
+     * Returns every Point where the smaller BufferedImage is contained within the larger BufferedImage. Matches are found lazily in a single pass as the stream is consumed, so limiting the stream stops the search early.
+     * 
+     * @param haystack image to search
+     * @param needle image to search for
+     * @return stream of points, top to bottom and then left to right, where the smaller BufferedImage is represented in the larger BufferedImage
+     * @see java.awt.image.BufferedImage
+     */
+    public static Stream<Point> findAll(final BufferedImage haystack, final BufferedImage needle) {
+        return findAll(haystack, needle, true);
+    }
+    
+    /**
+     *
+     * Returns every Point where the smaller BufferedImage is contained within the larger BufferedImage. Matches are found lazily in a single pass as the stream is consumed, so limiting the stream stops the search early.
+     * 
+     * @param haystack image to search
+     * @param needle image to search for
+     * @param overlapping true to include matches that overlap an earlier match, false to skip them
+     * @return stream of points, top to bottom and then left to right, where the smaller BufferedImage is represented in the larger BufferedImage
+     * @see java.awt.image.BufferedImage
+     */
+    public static Stream<Point> findAll(final BufferedImage haystack, final BufferedImage needle, final boolean overlapping) {
+        if (haystack == null || needle == null) return Stream.empty();
+        return findAll(haystack, new Needle(needle), overlapping);
+    }
+    
+    /**
+     *
+     * Returns every Point where a compiled Needle is contained within a larger BufferedImage. Matches are found lazily in a single pass as the stream is consumed, so limiting the stream stops the search early.
+     * 
+     * @param haystack image to search
+     * @param needle compiled image to search for
+     * @param overlapping true to include matches that overlap an earlier match, false to skip them
+     * @return stream of points, top to bottom and then left to right, where the needle is represented in the larger BufferedImage
+     * @see java.awt.image.BufferedImage
+     */
+    public static Stream<Point> findAll(final BufferedImage haystack, final Needle needle, final boolean overlapping) {
+        if (haystack == null || needle == null) return Stream.empty();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Matches(Pixels.of(haystack), needle, overlapping), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+    
+    /**
+     *
+     * Finds the connected regions of pixels in a BufferedImage whose color satisfies a predicate, such as bars, highlighted cells or markers. Use a Labeller directly to reuse its buffers across frames.
+     * 
+     * @param image image to search
+     * @param matches predicate deciding, from the RGB value of a pixel in the default sRGB ColorModel, whether it belongs to a region
+     * @param minSize smallest number of pixels a region must have to be returned
+     * @return regions in the order of their first pixel, scanning top to bottom and then left to right
+     * @see com.github.confiqure.logic.Labeller
+     */
+    public static List<Region> findRegions(final BufferedImage image, final IntPredicate matches, final int minSize) {
+        return new Labeller().label(image, matches, minSize);
     }
     
     /**
@@ -172,12 +555,23 @@ public class Images {
      */
     public static boolean contains(final BufferedImage haystack, final int needle) {
         if (haystack == null) return false;
-        for (int x = 0; x < haystack.getWidth(); x++) {
-            for (int y = 0; y < haystack.getHeight(); y++) {
-                if (haystack.getRGB(x, y) == needle) return true;
-            }
-        }
-        return false;
+        return Matcher.contains(Pixels.of(haystack), needle);
+    }
+    
+    /**
+     *
+     * Checks if a larger BufferedImage contains a pixel color, splitting the search into bands of rows that run in parallel. Small haystacks are searched on the calling thread.
+     * 
+     * @param haystack image to search
+     * @param needle pixel RGB integer to search for
+     * @param pool pool to search on, or null for the common pool
+     * @return true if the pixel color is contained within the larger image
+     * @see java.awt.image.BufferedImage
+     * @see java.util.concurrent.ForkJoinPool
+     */
+    public static boolean contains(final BufferedImage haystack, final int needle, final ForkJoinPool pool) {
+        if (haystack == null) return false;
+        return ParallelMatcher.contains(Pixels.of(haystack), needle, pool == null ? ForkJoinPool.commonPool() : pool);
     }
     
     /**
@@ -190,17 +584,11 @@ public class Images {
      * @see java.awt.image.BufferedImage
      */
     public static boolean equals(final BufferedImage a, final BufferedImage b) {
+        if (a != null && a == b) return true;
         if (a == null || b == null || a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) {
             return false;
         }
-        for (int x = 0; x < a.getWidth(); x++) {
-            for (int y = 0; y < a.getHeight(); y++) {
-                if (a.getRGB(x, y) != b.getRGB(x, y)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return Matcher.equals(Pixels.of(a), Pixels.of(b));
     }
     
 }
@@ -0,0 +1,163 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ *
+ * Searches successive frames of the screen for one needle, only rescanning what changed. Frames are split into square tiles and each row is compared against a copy of the previous frame with Arrays.mismatch, so unchanged rows cost one bulk comparison and no needle checks; locations whose needle would not touch a changed tile keep the result they had on the previous frame. Every poll still reads the whole frame once, so the saving is in the needle checks that are skipped, not in memory traffic. Instances keep one frame worth of pixels and are not safe for use by multiple threads.
+ * 
+ * @author Dylan Wheeler
+ */
+public class IncrementalSearch {
+    
+    private final Needle needle;
+    private final int tile;
+    private final TreeSet<Point> matches = new TreeSet<>((a, b) -> a.y != b.y ? Integer.compare(a.y, b.y) : Integer.compare(a.x, b.x));
+    private int[] previous = null;
+    private int width = -1, height = -1, fill = 0;
+    
+    /**
+     *
+     * Creates new instance with 64 pixel tiles.
+     * 
+     * @param needle compiled image to search for
+     */
+    public IncrementalSearch(final Needle needle) {
+        this(needle, 64);
+    }
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param needle compiled image to search for
+     * @param tile width and height of the tiles frames are split into
+     */
+    public IncrementalSearch(final Needle needle, final int tile) {
+        if (tile < 1) throw new IllegalArgumentException("Tile size must be positive: " + tile);
+        this.needle = needle;
+        this.tile = tile;
+    }
+    
+    /**
+     *
+     * Returns Point where the needle is contained within a frame.
+     * 
+     * @param frame image to search, usually the next screenshot
+     * @return first point, scanning top to bottom and then left to right, where the needle is represented in the frame or null if there is none
+     * @see java.awt.image.BufferedImage
+     */
+    public Point find(final BufferedImage frame) {
+        if (frame == null) return null;
+        return find(Pixels.of(frame));
+    }
+    
+    /**
+     *
+     * Returns Point where the needle is contained within a frame.
+     * 
+     * @param frame pixels to search, usually the next screenshot
+     * @return first point, scanning top to bottom and then left to right, where the needle is represented in the frame or null if there is none
+     */
+    public Point find(final Pixels frame) {
+        final int columns = (frame.getWidth() + tile - 1) / tile, rows = (frame.getHeight() + tile - 1) / tile;
+        final boolean[] dirty = new boolean[columns * rows];
+        final boolean full = previous == null || frame.getWidth() != width || frame.getHeight() != height || frame.fill() != fill;
+        width = frame.getWidth();
+        height = frame.getHeight();
+        fill = frame.fill();
+        if (full) {
+            previous = new int[width * height];
+            Arrays.fill(dirty, true);
+        }
+        final int[] data = frame.data();
+        boolean changed = full;
+        for (int y = 0; y < height; y++) {
+            final int row = frame.offset() + y * frame.scanline(), last = y * width, band = y / tile * columns;
+            if (!full) {
+                //one bulk comparison clears an unchanged row, otherwise skip to the next tile after each difference
+                int x = Arrays.mismatch(data, row, row + width, previous, last, last + width);
+                if (x < 0) continue;
+                while (x >= 0) {
+                    dirty[band + x / tile] = true;
+                    final int next = (x / tile + 1) * tile;
+                    if (next >= width) break;
+                    final int m = Arrays.mismatch(data, row + next, row + width, previous, last + next, last + width);
+                    x = m < 0 ? -1 : next + m;
+                }
+                changed = true;
+            }
+            System.arraycopy(data, row, previous, last, width);
+        }
+        if (full) matches.clear();
+        if (changed) update(frame, dirty, columns);
+        return matches.isEmpty() ? null : new Point(matches.first());
+    }
+    
+    /**
+     *
+     * Forgets the previous frame so that the next one is searched in full.
+     * 
+     */
+    public void reset() {
+        previous = null;
+        matches.clear();
+    }
+    
+    /**
+     *
+     * Drops known matches that touch a changed tile and searches every location that touches one.
+     * 
+     * @param frame pixels to search
+     * @param dirty changed tiles, row by row
+     * @param columns number of tiles in a row
+     */
+    private void update(final Pixels frame, final boolean[] dirty, final int columns) {
+        final int w = needle.getWidth(), h = needle.getHeight();
+        for (final Iterator<Point> it = matches.iterator(); it.hasNext();) {
+            final Point p = it.next();
+            if (touches(dirty, columns, p.x, p.y, p.x + w - 1, p.y + h - 1)) it.remove();
+        }
+        final int maxX = frame.getWidth() - w, maxY = frame.getHeight() - h;
+        //locations are grouped into tile-sized cells, a cell is rescanned if a needle anywhere in it would reach a changed tile
+        for (int cy = 0; cy * tile <= maxY; cy++) {
+            for (int cx = 0; cx * tile <= maxX; cx++) {
+                final int x0 = cx * tile, y0 = cy * tile;
+                final int x1 = Math.min(x0 + tile - 1, maxX), y1 = Math.min(y0 + tile - 1, maxY);
+                if (!touches(dirty, columns, x0, y0, x1 + w - 1, y1 + h - 1)) continue;
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) {
+                        if (Matcher.matchesAt(frame, needle, x, y)) matches.add(new Point(x, y));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     *
+     * Checks if any changed tile overlaps a rectangle of pixels.
+     * 
+     * @param dirty changed tiles, row by row
+     * @param columns number of tiles in a row
+     * @param x0 left edge of the rectangle, inclusive
+     * @param y0 top edge of the rectangle, inclusive
+     * @param x1 right edge of the rectangle, inclusive
+     * @param y1 bottom edge of the rectangle, inclusive
+     * @return true if a changed tile overlaps the rectangle
+     */
+    private boolean touches(final boolean[] dirty, final int columns, final int x0, final int y0, final int x1, final int y1) {
+        final int rows = dirty.length / columns;
+        for (int ty = y0 / tile; ty <= Math.min(y1 / tile, rows - 1); ty++) {
+            for (int tx = x0 / tile; tx <= Math.min(x1 / tile, columns - 1); tx++) {
+                if (dirty[ty * columns + tx]) return true;
+            }
+        }
+        return false;
+    }
+    
+}
@@ -0,0 +1,212 @@
+package com.github.confiqure.logic;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ *
+ * Finds connected regions of pixels that satisfy a color predicate. The image is read once, top to bottom: each matching pixel takes the label of a matching neighbor above or to its left, labels that meet are joined in a union-find forest, and the bounds, size and coordinate sums of each label are gathered as it goes, so the regions are complete once the last row is read. The label buffers are kept and reused by later calls. Instances are not safe for use by multiple threads.
+ * 
+ * @author Dylan Wheeler
+ */
+public class Labeller {
+    
+    private final boolean diagonal;
+    private int[] labels = new int[0], parent = new int[64], regionOf = new int[64];
+    private int[] minX = new int[64], minY = new int[64], maxX = new int[64], maxY = new int[64], count = new int[64];
+    private long[] sumX = new long[64], sumY = new long[64];
+    private int width = 0, height = 0;
+    
+    /**
+     *
+     * Creates new instance joining pixels that share an edge.
+     * 
+     */
+    public Labeller() {
+        this(false);
+    }
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param diagonal true to also join pixels that only share a corner
+     */
+    public Labeller(final boolean diagonal) {
+        this.diagonal = diagonal;
+    }
+    
+    /**
+     *
+     * Finds the regions of a BufferedImage.
+     * 
+     * @param image image to label
+     * @param matches predicate deciding, from the RGB value of a pixel in the default sRGB ColorModel, whether it belongs to a region
+     * @param minSize smallest number of pixels a region must have to be returned
+     * @return regions in the order of their first pixel, scanning top to bottom and then left to right
+     * @see java.awt.image.BufferedImage
+     */
+    public List<Region> label(final BufferedImage image, final IntPredicate matches, final int minSize) {
+        return label(Pixels.of(image), matches, minSize);
+    }
+    
+    /**
+     *
+     * Finds the regions of an image.
+     * 
+     * @param pixels pixels to label
+     * @param matches predicate deciding, from the RGB value of a pixel in the default sRGB ColorModel, whether it belongs to a region
+     * @param minSize smallest number of pixels a region must have to be returned
+     * @return regions in the order of their first pixel, scanning top to bottom and then left to right
+     */
+    public List<Region> label(final Pixels pixels, final IntPredicate matches, final int minSize) {
+        width = pixels.getWidth();
+        height = pixels.getHeight();
+        if (labels.length < width * height) labels = new int[width * height];
+        final int[] data = pixels.data();
+        final int fill = pixels.fill();
+        //label 0 is the background
+        int next = 1;
+        for (int y = 0; y < height; y++) {
+            final int row = pixels.offset() + y * pixels.scanline(), out = y * width;
+            for (int x = 0; x < width; x++) {
+                if (!matches.test(data[row + x] | fill)) {
+                    labels[out + x] = 0;
+                    continue;
+                }
+                final int left = x > 0 ? labels[out + x - 1] : 0;
+                final int up = y > 0 ? labels[out - width + x] : 0;
+                int label = left != 0 ? left : up;
+                if (diagonal && y > 0) {
+                    final int upLeft = x > 0 ? labels[out - width + x - 1] : 0;
+                    final int upRight = x < width - 1 ? labels[out - width + x + 1] : 0;
+                    if (label == 0) label = upLeft != 0 ? upLeft : upRight;
+                    if (upLeft != 0) union(label, upLeft);
+                    if (upRight != 0) union(label, upRight);
+                }
+                if (label == 0) {
+                    if (next == parent.length) grow();
+                    label = next++;
+                    parent[label] = label;
+                    minX[label] = x;
+                    minY[label] = y;
+                    maxX[label] = x;
+                    maxY[label] = y;
+                    count[label] = 0;
+                    sumX[label] = 0;
+                    sumY[label] = 0;
+                } else if (left != 0 && up != 0 && left != up) {
+                    union(left, up);
+                }
+                labels[out + x] = label;
+                //statistics go to the provisional label and are merged into its root at the end
+                if (x < minX[label]) minX[label] = x;
+                if (x > maxX[label]) maxX[label] = x;
+                maxY[label] = y;
+                count[label]++;
+                sumX[label] += x;
+                sumY[label] += y;
+            }
+        }
+        for (int l = 1; l < next; l++) {
+            final int root = find(l);
+            if (root == l) continue;
+            minX[root] = Math.min(minX[root], minX[l]);
+            minY[root] = Math.min(minY[root], minY[l]);
+            maxX[root] = Math.max(maxX[root], maxX[l]);
+            maxY[root] = Math.max(maxY[root], maxY[l]);
+            count[root] += count[l];
+            sumX[root] += sumX[l];
+            sumY[root] += sumY[l];
+        }
+        final List<Region> regions = new ArrayList<>();
+        for (int l = 1; l < next; l++) {
+            regionOf[l] = -1;
+            if (parent[l] != l || count[l] < minSize) continue;
+            regionOf[l] = regions.size();
+            regions.add(new Region(regions.size(), minX[l], minY[l], maxX[l] - minX[l] + 1, maxY[l] - minY[l] + 1, count[l], (double) sumX[l] / count[l], (double) sumY[l] / count[l]));
+        }
+        return Collections.unmodifiableList(regions);
+    }
+    
+    /**
+     *
+     * Returns the region a pixel of the last labelled image belongs to.
+     * 
+     * @param x x-coordinate of the pixel
+     * @param y y-coordinate of the pixel
+     * @return index of the region in the list returned by the last call to label, or -1 if the pixel is in none of them
+     */
+    public int getLabel(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return -1;
+        final int label = labels[y * width + x];
+        return label == 0 ? -1 : regionOf[find(label)];
+    }
+    
+    /**
+     *
+     * Creates a predicate matching colors within a tolerance of a color on each of the red, green and blue channels.
+     * 
+     * @param rgb the RGB value of the color in the default sRGB ColorModel
+     * @param tolerance largest allowed difference (0-255) of a channel
+     * @return color predicate
+     */
+    public static IntPredicate color(final int rgb, final int tolerance) {
+        return c -> Matcher.within(c, rgb, tolerance);
+    }
+    
+    /**
+     *
+     * Creates a predicate matching colors whose red, green and blue channels each lie in a range.
+     * 
+     * @param min the RGB value of the color holding the lowest value of each channel
+     * @param max the RGB value of the color holding the highest value of each channel
+     * @return color predicate
+     */
+    public static IntPredicate range(final int min, final int max) {
+        return c -> {
+            for (int shift = 0; shift <= 16; shift += 8) {
+                final int v = (c >> shift) & 0xFF;
+                if (v < ((min >> shift) & 0xFF) || v > ((max >> shift) & 0xFF)) return false;
+            }
+            return true;
+        };
+    }
+    
+    private int find(int label) {
+        while (parent[label] != label) {
+            //path halving keeps the trees flat without recursion
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+    
+    private void union(final int a, final int b) {
+        final int ra = find(a), rb = find(b);
+        //the smaller label stays the root, so roots are ordered by their first pixel
+        if (ra < rb) {
+            parent[rb] = ra;
+        } else if (rb < ra) {
+            parent[ra] = rb;
+        }
+    }
+    
+    private void grow() {
+        final int size = parent.length * 2;
+        parent = Arrays.copyOf(parent, size);
+        regionOf = Arrays.copyOf(regionOf, size);
+        minX = Arrays.copyOf(minX, size);
+        minY = Arrays.copyOf(minY, size);
+        maxX = Arrays.copyOf(maxX, size);
+        maxY = Arrays.copyOf(maxY, size);
+        count = Arrays.copyOf(count, size);
+        sumX = Arrays.copyOf(sumX, size);
+        sumY = Arrays.copyOf(sumY, size);
+    }
+    
+}
@@ -0,0 +1,371 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ *
+ * Exact pixel matching over the raw arrays behind Pixels. Images are walked row by row so that reads stay sequential in memory.
+ * 
+ * @author Dylan Wheeler
+ */
+final class Matcher {
+    
+    private Matcher() {}
+    
+    /**
+     *
+     * Finds the first location of needle within haystack, scanning top to bottom and then left to right.
+     * 
+     * @param haystack pixels to search
+     * @param needle pixels to search for
+     * @return top left corner of the match or null if there is none
+     */
+    static Point find(final Pixels haystack, final Pixels needle) {
+        return find(haystack, needle, 0, haystack.getHeight() - needle.getHeight() + 1);
+    }
+    
+    /**
+     *
+     * Finds the first location of needle within haystack whose y-coordinate lies in a range of rows.
+     * 
+     * @param haystack pixels to search
+     * @param needle pixels to search for
+     * @param fromY first y-coordinate to try, inclusive
+     * @param toY last y-coordinate to try, exclusive
+     * @return top left corner of the match or null if there is none
+     */
+    static Point find(final Pixels haystack, final Pixels needle, final int fromY, final int toY) {
+        final int maxX = haystack.getWidth() - needle.getWidth(), maxY = Math.min(toY - 1, haystack.getHeight() - needle.getHeight());
+        if (maxX < 0 || maxY < fromY) return null;
+        final int[] h = haystack.data(), n = needle.data();
+        final int hFill = haystack.fill(), nFill = needle.fill();
+        final int first = n[needle.offset()] | nFill;
+        for (int offY = Math.max(0, fromY); offY <= maxY; offY++) {
+            final int row = haystack.offset() + offY * haystack.scanline();
+            for (int offX = 0; offX <= maxX; offX++) {
+                //cheap reject on the first pixel before walking the whole needle
+                if ((h[row + offX] | hFill) == first && matchesAt(haystack, needle, offX, offY)) {
+                    return new Point(offX, offY);
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     *
+     * Checks if needle matches haystack exactly with its top left corner at the given offset.
+     * 
+     * @param haystack pixels to search
+     * @param needle pixels to search for
+     * @param offX x-coordinate in haystack
+     * @param offY y-coordinate in haystack
+     * @return true if every pixel of needle is equal to the pixel beneath it
+     */
+    static boolean matchesAt(final Pixels haystack, final Pixels needle, final int offX, final int offY) {
+        final int[] h = haystack.data(), n = needle.data();
+        final int hFill = haystack.fill(), nFill = needle.fill();
+        final int width = needle.getWidth();
+        for (int y = 0; y < needle.getHeight(); y++) {
+            final int hRow = haystack.offset() + (offY + y) * haystack.scanline() + offX;
+            final int nRow = needle.offset() + y * needle.scanline();
+            if (!PixelOps.INSTANCE.equals(h, hRow, hFill, n, nRow, nFill, width)) return false;
+        }
+        return true;
+    }
+    
+    /**
+     *
+     * Finds the first location of a compiled needle within haystack, scanning top to bottom and then left to right.
+     * 
+     * @param haystack pixels to search
+     * @param needle needle to search for
+     * @return top left corner of the match or null if there is none
+     */
+    static Point find(final Pixels haystack, final Needle needle) {
+        return find(haystack, needle, 0, haystack.getHeight() - needle.getHeight() + 1);
+    }
+    
+    /**
+     *
+     * Finds the first location of a compiled needle within haystack whose y-coordinate lies in a range of rows. Offsets are rejected on the needle's rarest pixel rather than its top left corner.
+     * 
+     * @param haystack pixels to search
+     * @param needle needle to search for
+     * @param fromY first y-coordinate to try, inclusive
+     * @param toY last y-coordinate to try, exclusive
+     * @return top left corner of the match or null if there is none
+     */
+    static Point find(final Pixels haystack, final Needle needle, final int fromY, final int toY) {
+        return find(haystack, needle, 0, fromY, toY);
+    }
+    
+    /**
+     *
+     * Finds the first location of a compiled needle within haystack at or after a starting offset, scanning top to bottom and then left to right.
+     * 
+     * @param haystack pixels to search
+     * @param needle needle to search for
+     * @param fromX first x-coordinate to try on the first row, inclusive
+     * @param fromY first y-coordinate to try, inclusive
+     * @param toY last y-coordinate to try, exclusive
+     * @return top left corner of the match or null if there is none
+     */
+    static Point find(final Pixels haystack, final Needle needle, final int fromX, final int fromY, final int toY) {
+        final int maxX = haystack.getWidth() - needle.getWidth(), maxY = Math.min(toY - 1, haystack.getHeight() - needle.getHeight());
+        if (maxX < 0 || maxY < fromY) return null;
+        final int[] h = haystack.data();
+        final int fill = haystack.fill();
+        final int anchorX = needle.anchorX()[0], anchorY = needle.anchorY()[0], first = needle.anchorRGB()[0];
+        for (int offY = Math.max(0, fromY); offY <= maxY; offY++) {
+            final int row = haystack.offset() + (offY + anchorY) * haystack.scanline() + anchorX;
+            for (int offX = offY == fromY ? Math.max(0, fromX) : 0; offX <= maxX; offX++) {
+                if ((h[row + offX] | fill) == first && matchesAt(haystack, needle, offX, offY)) {
+                    return new Point(offX, offY);
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     *
+     * Checks if a compiled needle matches haystack exactly with its top left corner at the given offset, comparing its anchors before the rest of its pixels.
+     * 
+     * @param haystack pixels to search
+     * @param needle needle to search for
+     * @param offX x-coordinate in haystack
+     * @param offY y-coordinate in haystack
+     * @return true if every pixel of needle is equal to the pixel beneath it
+     */
+    static boolean matchesAt(final Pixels haystack, final Needle needle, final int offX, final int offY) {
+        final int[] h = haystack.data(), x = needle.anchorX(), y = needle.anchorY(), rgb = needle.anchorRGB();
+        final int base = haystack.offset() + offY * haystack.scanline() + offX, fill = haystack.fill();
+        for (int i = 0; i < rgb.length; i++) {
+            if ((h[base + y[i] * haystack.scanline() + x[i]] | fill) != rgb[i]) return false;
+        }
+        return matchesAt(haystack, needle.getPixels(), offX, offY);
+    }
+    
+    /**
+     *
+     * Finds the first location of needle within haystack where every color channel is within a tolerance of the pixel beneath it.
+     * 
+     * @param haystack pixels to search
+     * @param needle pixels to search for
+     * @param tolerance largest allowed difference of the red, green or blue channel
+     * @return top left corner of the match or null if there is none
+     */
+    static Point find(final Pixels haystack, final Pixels needle, final int tolerance) {
+        final int maxX = haystack.getWidth() - needle.getWidth(), maxY = haystack.getHeight() - needle.getHeight();
+        if (maxX < 0 || maxY < 0 || tolerance < 0) return null;
+        final int[] h = haystack.data();
+        final int first = needle.data()[needle.offset()];
+        for (int offY = 0; offY <= maxY; offY++) {
+            final int row = haystack.offset() + offY * haystack.scanline();
+            for (int offX = 0; offX <= maxX; offX++) {
+                if (within(h[row + offX], first, tolerance) && matchesAt(haystack, needle, offX, offY, tolerance)) {
+                    return new Point(offX, offY);
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     *
+     * Checks if needle matches haystack within a tolerance with its top left corner at the given offset.
+     * 
+     * @param haystack pixels to search
+     * @param needle pixels to search for
+     * @param offX x-coordinate in haystack
+     * @param offY y-coordinate in haystack
+     * @param tolerance largest allowed difference of the red, green or blue channel
+     * @return true if every color channel of needle is within tolerance of the pixel beneath it
+     */
+    static boolean matchesAt(final Pixels haystack, final Pixels needle, final int offX, final int offY, final int tolerance) {
+        final int[] h = haystack.data(), n = needle.data();
+        final int width = needle.getWidth();
+        for (int y = 0; y < needle.getHeight(); y++) {
+            final int hRow = haystack.offset() + (offY + y) * haystack.scanline() + offX;
+            final int nRow = needle.offset() + y * needle.scanline();
+            if (!PixelOps.INSTANCE.within(h, hRow, n, nRow, width, tolerance)) return false;
+        }
+        return true;
+    }
+    
+    /**
+     *
+     * Finds the location of needle within haystack with the lowest error. The error of an offset is the sum of the absolute (or squared) differences of every color channel; an offset is abandoned as soon as its running error exceeds the best found so far.
+     * 
+     * @param haystack pixels to search
+     * @param needle pixels to search for
+     * @param maxError largest total error accepted as a match
+     * @param squared true to sum squared differences, false to sum absolute differences
+     * @return top left corner of the best match or null if no offset is within maxError
+     */
+    static Point findBest(final Pixels haystack, final Pixels needle, final long maxError, final boolean squared) {
+        final int maxX = haystack.getWidth() - needle.getWidth(), maxY = haystack.getHeight() - needle.getHeight();
+        if (maxX < 0 || maxY < 0 || maxError < 0) return null;
+        Point best = null;
+        long limit = maxError;
+        for (int offY = 0; offY <= maxY; offY++) {
+            for (int offX = 0; offX <= maxX; offX++) {
+                final long error = error(haystack, needle, offX, offY, limit, squared);
+                if (error <= limit) {
+                    best = new Point(offX, offY);
+                    if (error == 0) return best;
+                    //only strictly better offsets can replace this one
+                    limit = error - 1;
+                }
+            }
+        }
+        return best;
+    }
+    
+    /**
+     *
+     * Computes the error of needle placed at an offset within haystack, giving up once it exceeds a limit.
+     * 
+     * @param haystack pixels to search
+     * @param needle pixels to search for
+     * @param offX x-coordinate in haystack
+     * @param offY y-coordinate in haystack
+     * @param limit error beyond which the offset is abandoned
+     * @param squared true to sum squared differences, false to sum absolute differences
+     * @return total error, or Long.MAX_VALUE if it exceeded limit
+     */
+    static long error(final Pixels haystack, final Pixels needle, final int offX, final int offY, final long limit, final boolean squared) {
+        final int[] h = haystack.data(), n = needle.data();
+        final int width = needle.getWidth();
+        long error = 0;
+        for (int y = 0; y < needle.getHeight(); y++) {
+            final int hRow = haystack.offset() + (offY + y) * haystack.scanline() + offX;
+            final int nRow = needle.offset() + y * needle.scanline();
+            for (int x = 0; x < width; x++) {
+                error += squared ? squaredDistance(h[hRow + x], n[nRow + x]) : distance(h[hRow + x], n[nRow + x]);
+                if (error > limit) return Long.MAX_VALUE;
+            }
+        }
+        return error;
+    }
+    
+    /**
+     *
+     * Checks if two colors are within a tolerance on each of the red, green and blue channels.
+     * 
+     * @param a first color
+     * @param b second color
+     * @param tolerance largest allowed difference of a channel
+     * @return true if no channel differs by more than tolerance
+     */
+    static boolean within(final int a, final int b, final int tolerance) {
+        return Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)) <= tolerance
+                && Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)) <= tolerance
+                && Math.abs((a & 0xFF) - (b & 0xFF)) <= tolerance;
+    }
+    
+    /**
+     *
+     * Sums the absolute differences of the red, green and blue channels of two colors.
+     * 
+     * @param a first color
+     * @param b second color
+     * @return distance between the colors
+     */
+    static int distance(final int a, final int b) {
+        return Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF))
+                + Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF))
+                + Math.abs((a & 0xFF) - (b & 0xFF));
+    }
+    
+    /**
+     *
+     * Sums the squared differences of the red, green and blue channels of two colors.
+     * 
+     * @param a first color
+     * @param b second color
+     * @return squared distance between the colors
+     */
+    static int squaredDistance(final int a, final int b) {
+        final int r = ((a >> 16) & 0xFF) - ((b >> 16) & 0xFF);
+        final int g = ((a >> 8) & 0xFF) - ((b >> 8) & 0xFF);
+        final int bl = (a & 0xFF) - (b & 0xFF);
+        return r * r + g * g + bl * bl;
+    }
+    
+    /**
+     *
+     * Checks if any pixel of haystack is a specific color.
+     * 
+     * @param haystack pixels to search
+     * @param rgb color to search for
+     * @return true if the color is present
+     */
+    static boolean contains(final Pixels haystack, final int rgb) {
+        return contains(haystack, rgb, 0, haystack.getHeight());
+    }
+    
+    /**
+     *
+     * Checks if any pixel within a range of rows of haystack is a specific color.
+     * 
+     * @param haystack pixels to search
+     * @param rgb color to search for
+     * @param fromY first row to search, inclusive
+     * @param toY last row to search, exclusive
+     * @return true if the color is present
+     */
+    static boolean contains(final Pixels haystack, final int rgb, final int fromY, final int toY) {
+        final int[] h = haystack.data();
+        final int fill = haystack.fill(), width = haystack.getWidth();
+        for (int y = Math.max(0, fromY); y < Math.min(toY, haystack.getHeight()); y++) {
+            final int row = haystack.offset() + y * haystack.scanline();
+            if (PixelOps.INSTANCE.contains(h, row, row + width, rgb, fill)) return true;
+        }
+        return false;
+    }
+    
+    /**
+     *
+     * Checks if two images have the same size and pixels.
+     * 
+     * @param a first pixels to compare
+     * @param b second pixels to compare
+     * @return true if both are equal
+     */
+    static boolean equals(final Pixels a, final Pixels b) {
+        if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) return false;
+        if (a.fill() != b.fill()) return matchesAt(a, b, 0, 0);
+        //same alpha handling on both sides, so whole rows can be compared in bulk
+        for (int y = 0; y < a.getHeight(); y++) {
+            if (!equalRows(a.data(), a.offset() + y * a.scanline(), b.data(), b.offset() + y * b.scanline(), a.getWidth(), a.fill())) return false;
+        }
+        return true;
+    }
+    
+    /**
+     *
+     * Compares two rows of pixels with Arrays.mismatch, only looking closer where the raw values differ.
+     * 
+     * @param a first array
+     * @param aRow start of the row in the first array
+     * @param b second array
+     * @param bRow start of the row in the second array
+     * @param width length of the rows
+     * @param fill alpha bits forced on in both rows
+     * @return true if the rows are equal
+     */
+    private static boolean equalRows(final int[] a, final int aRow, final int[] b, final int bRow, final int width, final int fill) {
+        int from = 0;
+        while (from < width) {
+            final int i = Arrays.mismatch(a, aRow + from, aRow + width, b, bRow + from, bRow + width);
+            if (i < 0) return true;
+            if ((a[aRow + from + i] | fill) != (b[bRow + from + i] | fill)) return false;
+            from += i + 1;
+        }
+        return true;
+    }
+    
+}
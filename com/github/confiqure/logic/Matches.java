@@ -0,0 +1,85 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ *
+ * Iterator over every location of a needle within a haystack, found one at a time as it is advanced. The scan resumes just after the previous match, so a single pass over the haystack yields all of them.
+ * 
+ * @author Dylan Wheeler
+ */
+final class Matches implements Iterator<Point> {
+    
+    private final Pixels haystack;
+    private final Needle needle;
+    private final boolean overlapping;
+    private final ArrayDeque<Point> recent = new ArrayDeque<>();
+    private int x = 0, y = 0;
+    private Point next = null;
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param haystack pixels to search
+     * @param needle needle to search for
+     * @param overlapping true to report matches that overlap an earlier match, false to skip them
+     */
+    Matches(final Pixels haystack, final Needle needle, final boolean overlapping) {
+        this.haystack = haystack;
+        this.needle = needle;
+        this.overlapping = overlapping;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        final int rows = haystack.getHeight() - needle.getHeight() + 1;
+        while (next == null && y < rows) {
+            final Point p = Matcher.find(haystack, needle, x, y, rows);
+            if (p == null) {
+                y = rows;
+                break;
+            }
+            x = p.x + 1;
+            y = p.y;
+            final Point covering = overlapping ? null : covering(p);
+            if (covering == null) {
+                next = p;
+                if (!overlapping) recent.addLast(p);
+            } else {
+                //nothing can be accepted until the right edge of the match it overlaps
+                x = covering.x + needle.getWidth();
+            }
+        }
+        return next != null;
+    }
+    
+    @Override
+    public Point next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        final Point p = next;
+        next = null;
+        return p;
+    }
+    
+    /**
+     *
+     * Finds an accepted match that overlaps a location. Matches are accepted from top to bottom, so those ending above the location are discarded along the way.
+     * 
+     * @param p top left corner of a candidate match
+     * @return an overlapping match or null if there is none
+     */
+    private Point covering(final Point p) {
+        while (!recent.isEmpty() && recent.peekFirst().y + needle.getHeight() <= p.y) {
+            recent.removeFirst();
+        }
+        for (final Point accepted : recent) {
+            if (Math.abs(accepted.x - p.x) < needle.getWidth()) return accepted;
+        }
+        return null;
+    }
+    
+}
@@ -0,0 +1,215 @@
+package com.github.confiqure.logic;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * Image prepared once for repeated searches. The pixels are copied into a private array, and the pixels with the rarest colors are picked as anchors that are compared before the rest of the image, so most locations are rejected after a single comparison.
+ * 
+ * @author Dylan Wheeler
+ */
+public final class Needle {
+    
+    /**
+     * Largest number of anchors picked for a needle.
+     */
+    static final int ANCHORS = 8;
+    
+    private final Pixels pixels;
+    private final int[] anchorX, anchorY, anchorRGB;
+    private final long hash, perceptualHash;
+    private Pixels[] half = null, quarter = null;
+    
+    /**
+     *
+     * Creates new instance from a BufferedImage.
+     * 
+     * @param image image to search for
+     * @see java.awt.image.BufferedImage
+     */
+    public Needle(final BufferedImage image) {
+        this(Pixels.of(image));
+    }
+    
+    /**
+     *
+     * Creates new instance from Pixels.
+     * 
+     * @param pixels pixels to search for
+     */
+    public Needle(final Pixels pixels) {
+        final int width = pixels.getWidth(), height = pixels.getHeight();
+        if (width == 0 || height == 0) {
+            throw new IllegalArgumentException("Needle must not be empty");
+        }
+        final int[] data = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                data[y * width + x] = pixels.getRGB(x, y);
+            }
+        }
+        this.pixels = new Pixels(data, width, height);
+        //count how often each color appears so the rarest can be compared first
+        final Map<Integer, Integer> counts = new HashMap<>();
+        for (final int rgb : data) {
+            counts.merge(rgb, 1, Integer::sum);
+        }
+        final Integer[] order = new Integer[data.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(counts.get(data[a]), counts.get(data[b])));
+        final int anchors = Math.min(ANCHORS, counts.size());
+        anchorX = new int[anchors];
+        anchorY = new int[anchors];
+        anchorRGB = new int[anchors];
+        int picked = 0;
+        for (int i = 0; i < order.length && picked < anchors; i++) {
+            final int rgb = data[order[i]];
+            //one anchor per color, an extra pixel of the same color rejects nothing new
+            if (counts.remove(rgb) == null) continue;
+            anchorX[picked] = order[i] % width;
+            anchorY[picked] = order[i] / width;
+            anchorRGB[picked] = rgb;
+            picked++;
+        }
+        hash = ImageHash.hash(this.pixels);
+        perceptualHash = ImageHash.perceptualHash(this.pixels);
+    }
+    
+    /**
+     *
+     * Creates new instance from pixels and anchors computed earlier, such as those stored in a TemplateLibrary file.
+     * 
+     * @param data packed ARGB pixels, row by row, owned by the needle from now on
+     * @param width width of the needle
+     * @param height height of the needle
+     * @param anchorX x-coordinates of the anchors
+     * @param anchorY y-coordinates of the anchors
+     * @param anchorRGB colors of the anchors
+     * @param hash content hash
+     * @param perceptualHash perceptual hash
+     */
+    Needle(final int[] data, final int width, final int height, final int[] anchorX, final int[] anchorY, final int[] anchorRGB, final long hash, final long perceptualHash) {
+        if (width == 0 || height == 0 || anchorRGB.length == 0) {
+            throw new IllegalArgumentException("Needle must not be empty");
+        }
+        this.pixels = new Pixels(data, width, height);
+        this.anchorX = anchorX;
+        this.anchorY = anchorY;
+        this.anchorRGB = anchorRGB;
+        this.hash = hash;
+        this.perceptualHash = perceptualHash;
+    }
+    
+    /**
+     *
+     * Returns the width of the needle.
+     * 
+     * @return width in pixels
+     */
+    public int getWidth() {
+        return pixels.getWidth();
+    }
+    
+    /**
+     *
+     * Returns the height of the needle.
+     * 
+     * @return height in pixels
+     */
+    public int getHeight() {
+        return pixels.getHeight();
+    }
+    
+    /**
+     *
+     * Returns the pixels of the needle.
+     * 
+     * @return pixels copied when the needle was created
+     */
+    public Pixels getPixels() {
+        return pixels;
+    }
+    
+    /**
+     *
+     * Returns the content hash of the needle, computed when it was created.
+     * 
+     * @return content hash
+     * @see com.github.confiqure.logic.ImageHash#hash(Pixels)
+     */
+    public long getHash() {
+        return hash;
+    }
+    
+    /**
+     *
+     * Returns the perceptual hash of the needle, computed when it was created.
+     * 
+     * @return perceptual hash
+     * @see com.github.confiqure.logic.ImageHash#perceptualHash(Pixels)
+     */
+    public long getPerceptualHash() {
+        return perceptualHash;
+    }
+    
+    /**
+     *
+     * Determines if two needles have the same pixels. Needles with different content hashes are rejected without comparing pixels.
+     * 
+     * @param o object to compare
+     * @return true if o is a needle of the same size with the same colors
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) return true;
+        if (!(o instanceof Needle)) return false;
+        final Needle other = (Needle) o;
+        return hash == other.hash && Matcher.equals(pixels, other.pixels);
+    }
+    
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+    
+    int[] anchorX() {
+        return anchorX;
+    }
+    
+    int[] anchorY() {
+        return anchorY;
+    }
+    
+    int[] anchorRGB() {
+        return anchorRGB;
+    }
+    
+    /**
+     *
+     * Returns the needle shrunk by a factor for every way it can lie across the blocks of a Pyramid, building them on first use.
+     * 
+     * @param factor 2 or 4
+     * @return shrunken needles, the one starting at pixel (x, y) stored at index y * factor + x
+     */
+    synchronized Pixels[] shrink(final int factor) {
+        Pixels[] shrunk = factor == 2 ? half : quarter;
+        if (shrunk == null) {
+            shrunk = new Pixels[factor * factor];
+            for (int i = 0; i < shrunk.length; i++) {
+                shrunk[i] = Pyramid.shrink(pixels, i % factor, i / factor, factor);
+            }
+            if (factor == 2) {
+                half = shrunk;
+            } else {
+                quarter = shrunk;
+            }
+        }
+        return shrunk;
+    }
+    
+}
@@ -0,0 +1,138 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * Splits searches into bands of rows that are scanned on a ForkJoinPool. Each band tries every offset whose top row lies inside it, so it reads a needle's height of rows past its end and no match straddling two bands is missed. Once a match is found, bands below it stop, while bands above it keep going so that the result is the same as a sequential search.
+ * 
+ * @author Dylan Wheeler
+ */
+final class ParallelMatcher {
+    
+    /**
+     * Number of haystack pixels below which a search stays on the calling thread.
+     */
+    static final int THRESHOLD = 1 << 18;
+    
+    private ParallelMatcher() {}
+    
+    /**
+     *
+     * Finds the first location of needle within haystack, scanning bands of rows in parallel.
+     * 
+     * @param haystack pixels to search
+     * @param needle needle to search for
+     * @param pool pool to run the bands on
+     * @return top left corner of the match or null if there is none
+     */
+    static Point find(final Pixels haystack, final Needle needle, final ForkJoinPool pool) {
+        final int rows = haystack.getHeight() - needle.getHeight() + 1, columns = haystack.getWidth() - needle.getWidth() + 1;
+        if (rows <= 0 || columns <= 0) return null;
+        if ((long) haystack.getWidth() * haystack.getHeight() < THRESHOLD || pool.getParallelism() < 2) {
+            return Matcher.find(haystack, needle);
+        }
+        final AtomicLong found = new AtomicLong(Long.MAX_VALUE);
+        pool.invoke(new Band(new Rows() {
+            @Override
+            public void scan(final int y) {
+                final Point p = Matcher.find(haystack, needle, y, y + 1);
+                if (p != null) {
+                    final long key = (long) p.y * columns + p.x;
+                    found.accumulateAndGet(key, Math::min);
+                }
+            }
+
+            @Override
+            public boolean done(final int y) {
+                //a match on an earlier row already beats anything this row could find
+                return found.get() < (long) y * columns;
+            }
+        }, 0, rows, bandHeight(haystack, pool)));
+        final long key = found.get();
+        return key == Long.MAX_VALUE ? null : new Point((int) (key % columns), (int) (key / columns));
+    }
+    
+    /**
+     *
+     * Checks if any pixel of haystack is a specific color, scanning bands of rows in parallel.
+     * 
+     * @param haystack pixels to search
+     * @param rgb color to search for
+     * @param pool pool to run the bands on
+     * @return true if the color is present
+     */
+    static boolean contains(final Pixels haystack, final int rgb, final ForkJoinPool pool) {
+        if ((long) haystack.getWidth() * haystack.getHeight() < THRESHOLD || pool.getParallelism() < 2) {
+            return Matcher.contains(haystack, rgb);
+        }
+        final AtomicLong found = new AtomicLong(Long.MAX_VALUE);
+        pool.invoke(new Band(new Rows() {
+            @Override
+            public void scan(final int y) {
+                if (Matcher.contains(haystack, rgb, y, y + 1)) found.set(y);
+            }
+
+            @Override
+            public boolean done(final int y) {
+                return found.get() != Long.MAX_VALUE;
+            }
+        }, 0, haystack.getHeight(), bandHeight(haystack, pool)));
+        return found.get() != Long.MAX_VALUE;
+    }
+    
+    private static int bandHeight(final Pixels haystack, final ForkJoinPool pool) {
+        //a few bands per worker keeps them balanced without making them too small to be worth forking
+        final int rows = haystack.getHeight() / (pool.getParallelism() * 4);
+        return Math.max(Math.max(1, THRESHOLD / 4 / Math.max(1, haystack.getWidth())), rows);
+    }
+    
+    /**
+     *
+     * Work done on each row of a band.
+     */
+    private interface Rows {
+
+        void scan(int y);
+
+        boolean done(int y);
+    
+    }
+    
+    /**
+     *
+     * Range of rows that splits itself in half until it is small enough to scan.
+     */
+    private static final class Band extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Rows rows;
+        private final int fromY, toY, height;
+
+        Band(final Rows rows, final int fromY, final int toY, final int height) {
+            this.rows = rows;
+            this.fromY = fromY;
+            this.toY = toY;
+            this.height = height;
+        }
+
+        @Override
+        protected void compute() {
+            if (rows.done(fromY)) return;
+            if (toY - fromY <= height) {
+                for (int y = fromY; y < toY && !rows.done(y); y++) {
+                    rows.scan(y);
+                }
+                return;
+            }
+            final int mid = (fromY + toY) >>> 1;
+            invokeAll(new Band(rows, fromY, mid, height), new Band(rows, mid, toY, height));
+        }
+    
+    }
+    
+}
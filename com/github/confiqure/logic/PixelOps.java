@@ -0,0 +1,115 @@
+package com.github.confiqure.logic;
+
+/**
+ *
+ * Row operations at the core of the matching loops. The Vector API backend is used when it was compiled from the simd source directory and the jdk.incubator.vector module is available, and the scalar backend otherwise.
+ * 
+ * @author Dylan Wheeler
+ */
+abstract class PixelOps {
+    
+    /**
+     * Backend picked when the class is loaded. Setting the system property macroapi.simd to false forces the scalar backend.
+     */
+    static final PixelOps INSTANCE = load();
+    
+    /**
+     *
+     * Checks if a row contains a color.
+     * 
+     * @param data pixel array
+     * @param from index of the first pixel, inclusive
+     * @param to index of the last pixel, exclusive
+     * @param rgb color to search for
+     * @param fill alpha bits forced on in the row
+     * @return true if any pixel is the color
+     */
+    abstract boolean contains(int[] data, int from, int to, int rgb, int fill);
+    
+    /**
+     *
+     * Checks if two rows are equal.
+     * 
+     * @param a first array
+     * @param aFrom index of the first pixel of the first row
+     * @param aFill alpha bits forced on in the first row
+     * @param b second array
+     * @param bFrom index of the first pixel of the second row
+     * @param bFill alpha bits forced on in the second row
+     * @param length number of pixels in a row
+     * @return true if every pixel is equal
+     */
+    abstract boolean equals(int[] a, int aFrom, int aFill, int[] b, int bFrom, int bFill, int length);
+    
+    /**
+     *
+     * Checks if every red, green and blue channel of two rows are within a tolerance.
+     * 
+     * @param a first array
+     * @param aFrom index of the first pixel of the first row
+     * @param b second array
+     * @param bFrom index of the first pixel of the second row
+     * @param length number of pixels in a row
+     * @param tolerance largest allowed difference of a channel
+     * @return true if no channel differs by more than tolerance
+     */
+    abstract boolean within(int[] a, int aFrom, int[] b, int bFrom, int length, int tolerance);
+    
+    /**
+     *
+     * Returns the name of the backend.
+     * 
+     * @return "vector" or "scalar"
+     */
+    abstract String name();
+    
+    private static PixelOps load() {
+        if (!"false".equalsIgnoreCase(System.getProperty("macroapi.simd"))) {
+            try {
+                //loaded by name so that this class never links against the incubator module
+                return (PixelOps) Class.forName("com.github.confiqure.logic.VectorOps").getDeclaredConstructor().newInstance();
+            } catch (final ReflectiveOperationException | LinkageError ex) {
+                //module not present, fall through to the scalar backend
+            }
+        }
+        return new ScalarOps();
+    }
+    
+    /**
+     *
+     * Backend comparing one pixel at a time.
+     */
+    static final class ScalarOps extends PixelOps {
+
+        @Override
+        boolean contains(final int[] data, final int from, final int to, final int rgb, final int fill) {
+            for (int i = from; i < to; i++) {
+                if ((data[i] | fill) == rgb) return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean equals(final int[] a, final int aFrom, final int aFill, final int[] b, final int bFrom, final int bFill, final int length) {
+            for (int i = 0; i < length; i++) {
+                if ((a[aFrom + i] | aFill) != (b[bFrom + i] | bFill)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        boolean within(final int[] a, final int aFrom, final int[] b, final int bFrom, final int length, final int tolerance) {
+            for (int i = 0; i < length; i++) {
+                if (!Matcher.within(a[aFrom + i], b[bFrom + i], tolerance)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+
+    }
+    
+}
@@ -0,0 +1,108 @@
+package com.github.confiqure.logic;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * Fixed set of pixels on the screen that are read together. The pixels are grouped into a few captures when the probe is created, using the same cost model as CaptureBatch, and every read takes those captures and copies the colors into an array supplied by the caller, instead of a native round trip and a Color for each pixel.
+ * 
+ * @author Dylan Wheeler
+ */
+public class PixelProbe {
+    
+    private final Images images;
+    private final int[] xs, ys, grab;
+    private final Rectangle[] grabs;
+    
+    /**
+     *
+     * Creates new instance with the default cost of a capture.
+     * 
+     * @param images instance of the Images class to take screenshots with
+     * @param xs x-coordinates of the pixels
+     * @param ys y-coordinates of the pixels
+     * @see com.github.confiqure.logic.Images
+     */
+    public PixelProbe(final Images images, final int[] xs, final int[] ys) {
+        this(images, xs, ys, 1 << 18);
+    }
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param images instance of the Images class to take screenshots with
+     * @param xs x-coordinates of the pixels
+     * @param ys y-coordinates of the pixels
+     * @param captureCost cost of one capture, expressed as the number of extra pixels it is worth grabbing to avoid one
+     * @see com.github.confiqure.logic.Images
+     * @see com.github.confiqure.logic.CaptureBatch#setCaptureCost(long)
+     */
+    public PixelProbe(final Images images, final int[] xs, final int[] ys, final long captureCost) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Coordinate arrays differ in length: " + xs.length + " and " + ys.length);
+        }
+        this.images = images;
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+        final List<Rectangle> areas = new ArrayList<>();
+        for (int i = 0; i < xs.length; i++) {
+            areas.add(new Rectangle(xs[i], ys[i], 1, 1));
+        }
+        grabs = CaptureBatch.merge(areas, captureCost).toArray(new Rectangle[0]);
+        grab = new int[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            while (!grabs[grab[i]].contains(xs[i], ys[i])) grab[i]++;
+        }
+    }
+    
+    /**
+     *
+     * Returns the number of pixels read by the probe.
+     * 
+     * @return number of pixels
+     */
+    public int size() {
+        return xs.length;
+    }
+    
+    /**
+     *
+     * Returns the areas of the screen captured by every read.
+     * 
+     * @return captures covering every pixel
+     * @see java.awt.Rectangle
+     */
+    public List<Rectangle> getCaptures() {
+        final List<Rectangle> copy = new ArrayList<>();
+        for (final Rectangle r : grabs) {
+            copy.add(new Rectangle(r));
+        }
+        return copy;
+    }
+    
+    /**
+     *
+     * Reads every pixel of the probe.
+     * 
+     * @param out array receiving the RGB value of each pixel in the default sRGB ColorModel, in the order the pixels were given
+     * @return out
+     */
+    public int[] read(final int[] out) {
+        if (out.length < xs.length) {
+            throw new IllegalArgumentException("Array holds " + out.length + " colors, probe has " + xs.length);
+        }
+        final Pixels[] captures = new Pixels[grabs.length];
+        for (int i = 0; i < grabs.length; i++) {
+            captures[i] = Pixels.of(images.screenshot(grabs[i]));
+        }
+        for (int i = 0; i < xs.length; i++) {
+            final Rectangle r = grabs[grab[i]];
+            out[i] = captures[grab[i]].getRGB(xs[i] - r.x, ys[i] - r.y);
+        }
+        return out;
+    }
+    
+}
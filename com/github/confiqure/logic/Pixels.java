@@ -0,0 +1,137 @@
+package com.github.confiqure.logic;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ *
+ * Row-major view of packed ARGB pixels backing an image.
+ * 
+ * @author Dylan Wheeler
+ */
+public final class Pixels {
+    
+    private final int[] data;
+    private final int offset, scanline, width, height, fill;
+    
+    /**
+     *
+     * Creates new instance over an array of packed ARGB pixels stored row by row.
+     * 
+     * @param data packed ARGB pixels
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     */
+    public Pixels(final int[] data, final int width, final int height) {
+        this(data, 0, width, width, height, 0);
+    }
+    
+    Pixels(final int[] data, final int offset, final int scanline, final int width, final int height, final int fill) {
+        if (width < 0 || height < 0 || scanline < width || offset < 0 || (height > 0 && offset + (height - 1) * (long) scanline + width > data.length)) {
+            throw new IllegalArgumentException("Pixel array is too small for " + width + "x" + height);
+        }
+        this.data = data;
+        this.offset = offset;
+        this.scanline = scanline;
+        this.width = width;
+        this.height = height;
+        this.fill = fill;
+    }
+    
+    /**
+     *
+     * Creates a view of the pixels of a BufferedImage. Images stored as TYPE_INT_RGB or TYPE_INT_ARGB (such as screen captures) are read in place; any other image is converted once into a new array.
+     * 
+     * @param image image to read
+     * @return pixels of the image, or null if image is null
+     * @see java.awt.image.BufferedImage
+     */
+    public static Pixels of(final BufferedImage image) {
+        if (image == null) return null;
+        final int type = image.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+            final WritableRaster raster = image.getRaster();
+            final DataBuffer buffer = raster.getDataBuffer();
+            if (buffer instanceof DataBufferInt && buffer.getNumBanks() == 1 && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+                final SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+                final int offset = buffer.getOffset() + model.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+                //TYPE_INT_RGB leaves the alpha byte undefined, getRGB reports it as opaque
+                return new Pixels(((DataBufferInt) buffer).getData(), offset, model.getScanlineStride(), image.getWidth(), image.getHeight(), type == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0);
+            }
+        }
+        final int w = image.getWidth(), h = image.getHeight();
+        return new Pixels(image.getRGB(0, 0, w, h, null, 0, w), w, h);
+    }
+    
+    /**
+     *
+     * Returns the width of the image.
+     * 
+     * @return width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     *
+     * Returns the height of the image.
+     * 
+     * @return height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     *
+     * Returns the color of a specific pixel.
+     * 
+     * @param x x-coordinate of the pixel
+     * @param y y-coordinate of the pixel
+     * @return the RGB value of the color in the default sRGB ColorModel
+     */
+    public int getRGB(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds: " + x + ", " + y);
+        }
+        return data[offset + y * scanline + x] | fill;
+    }
+    
+    /**
+     *
+     * Returns a view of a rectangular part of the image that shares its pixels.
+     * 
+     * @param x x-coordinate of the left edge
+     * @param y y-coordinate of the top edge
+     * @param width width of the view
+     * @param height height of the view
+     * @return pixels of the area
+     */
+    public Pixels getSubPixels(final int x, final int y, final int width, final int height) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Area " + x + ", " + y + ", " + width + "x" + height + " is outside of the image");
+        }
+        return new Pixels(data, offset + y * scanline + x, scanline, width, height, fill);
+    }
+    
+    int[] data() {
+        return data;
+    }
+    
+    int offset() {
+        return offset;
+    }
+    
+    int scanline() {
+        return scanline;
+    }
+    
+    int fill() {
+        return fill;
+    }
+    
+}
@@ -0,0 +1,291 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * Haystack prepared for coarse-to-fine searches. The image is shrunk by 2 or 4 in each direction by averaging blocks of pixels, and a needle is first searched for in the shrunken copy; only the locations that match there are compared at full size. The shrunken copies are built the first time they are needed and kept, so every search against the same screenshot shares them.
+ * <p>
+ * A needle can lie across the blocks of the haystack in factor * factor different ways, so it is shrunk once for each of them, and the rarest block of each shrunken needle becomes its key. The shrunken haystack is walked once, looking each block up among the keys of every way at the same time, so a search costs one table lookup per block instead of one comparison per pixel. Identical pixels average to identical blocks and pixels within a tolerance average to blocks within the same tolerance, which is why no match is ever missed. Tolerances above 32 match too many blocks to filter anything and are searched for at full size.
+ * 
+ * @author Dylan Wheeler
+ */
+public final class Pyramid {
+    
+    private static final int MAX_TOLERANCE = 32;
+    
+    private final Pixels pixels;
+    private Pixels half = null, quarter = null;
+    
+    /**
+     *
+     * Creates new instance from a BufferedImage.
+     * 
+     * @param image image to search
+     * @see java.awt.image.BufferedImage
+     */
+    public Pyramid(final BufferedImage image) {
+        this(Pixels.of(image));
+    }
+    
+    /**
+     *
+     * Creates new instance from Pixels.
+     * 
+     * @param pixels pixels to search
+     */
+    public Pyramid(final Pixels pixels) {
+        this.pixels = pixels;
+    }
+    
+    /**
+     *
+     * Returns the full size pixels.
+     * 
+     * @return pixels the pyramid was built from
+     */
+    public Pixels getPixels() {
+        return pixels;
+    }
+    
+    /**
+     *
+     * Finds the first location of a needle, scanning top to bottom and then left to right. Needles smaller than 4 pixels in either direction are searched for at full size.
+     * 
+     * @param needle needle to search for
+     * @return top left corner of the match or null if there is none
+     */
+    public Point find(final Needle needle) {
+        return search(needle, -1);
+    }
+    
+    /**
+     *
+     * Finds the first location of a needle where every color channel is within a tolerance of the pixel beneath it, scanning top to bottom and then left to right.
+     * 
+     * @param needle needle to search for
+     * @param tolerance largest allowed difference (0-255) of the red, green or blue channel of any pixel
+     * @return top left corner of the match or null if there is none
+     */
+    public Point find(final Needle needle, final int tolerance) {
+        return tolerance < 0 ? null : search(needle, tolerance);
+    }
+    
+    /**
+     *
+     * Returns the haystack shrunk by a factor, building it on first use.
+     * 
+     * @param factor 2 or 4
+     * @return averaged pixels
+     */
+    synchronized Pixels level(final int factor) {
+        if (factor == 2) {
+            if (half == null) half = shrink(pixels, 0, 0, 2);
+            return half;
+        }
+        //built from the full size pixels, averaging the half size copy again would round differently from the needle
+        if (quarter == null) quarter = shrink(pixels, 0, 0, 4);
+        return quarter;
+    }
+    
+    //a negative tolerance asks for an exact match
+    private Point search(final Needle needle, final int tolerance) {
+        final int factor = factor(needle);
+        if (factor == 1 || tolerance > MAX_TOLERANCE) {
+            return tolerance < 0 ? Matcher.find(pixels, needle) : Matcher.find(pixels, needle.getPixels(), tolerance);
+        }
+        final int maxX = pixels.getWidth() - needle.getWidth(), maxY = pixels.getHeight() - needle.getHeight();
+        if (maxX < 0 || maxY < 0) return null;
+        final Pixels level = level(factor);
+        final Pixels[] shrunk = needle.shrink(factor);
+        final int phases = factor * factor;
+        final int[] keyX = new int[phases], keyY = new int[phases], keyRGB = new int[phases];
+        final Keys keys = new Keys(phases * (tolerance < 0 ? 1 : 27));
+        final int[] quantized = quantizer(tolerance);
+        int maxKeyY = 0;
+        for (int p = 0; p < phases; p++) {
+            final int key = rarest(shrunk[p]);
+            keyX[p] = key % shrunk[p].getWidth();
+            keyY[p] = key / shrunk[p].getWidth();
+            keyRGB[p] = shrunk[p].data()[key];
+            maxKeyY = Math.max(maxKeyY, keyY[p]);
+            if (tolerance < 0) {
+                keys.add(keyRGB[p], p);
+            } else {
+                //a block within the tolerance of the key falls into the key's bucket or a neighbouring one on every channel
+                final int r = quantized[(keyRGB[p] >> 16) & 0xFF], g = quantized[(keyRGB[p] >> 8) & 0xFF], b = quantized[keyRGB[p] & 0xFF];
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dg = -1; dg <= 1; dg++) {
+                        for (int db = -1; db <= 1; db++) {
+                            if (r + dr >= 0 && g + dg >= 0 && b + db >= 0) keys.add(bucket(r + dr, g + dg, b + db), p);
+                        }
+                    }
+                }
+            }
+        }
+        final int[] d = level.data();
+        Point best = null;
+        for (int cy = 0; cy < level.getHeight(); cy++) {
+            //a key on this row belongs to a needle no higher than this, so nothing earlier than the best match is left
+            if (best != null && (cy - maxKeyY) * factor - (factor - 1) > best.y) break;
+            final int row = cy * level.scanline();
+            for (int cx = 0; cx < level.getWidth(); cx++) {
+                final int v = d[row + cx];
+                final int bucket = tolerance < 0 ? v : bucket(quantized[(v >> 16) & 0xFF], quantized[(v >> 8) & 0xFF], quantized[v & 0xFF]);
+                for (int e = keys.first(bucket); e >= 0; e = keys.next(e)) {
+                    final int p = keys.phase(e);
+                    if (tolerance < 0 ? v != keyRGB[p] : !Matcher.within(v, keyRGB[p], tolerance)) continue;
+                    //needle pixel (px, py) lands on the corner of a block, so the needle sits at (ox * factor - px, oy * factor - py)
+                    final int ox = cx - keyX[p], oy = cy - keyY[p];
+                    final int x = ox * factor - p % factor, y = oy * factor - p / factor;
+                    if (x < 0 || y < 0 || x > maxX || y > maxY) continue;
+                    if (best != null && (y > best.y || (y == best.y && x >= best.x))) continue;
+                    final boolean match = tolerance < 0
+                            ? Matcher.matchesAt(level, shrunk[p], ox, oy) && Matcher.matchesAt(pixels, needle, x, y)
+                            : Matcher.matchesAt(level, shrunk[p], ox, oy, tolerance) && Matcher.matchesAt(pixels, needle.getPixels(), x, y, tolerance);
+                    if (match) best = new Point(x, y);
+                }
+            }
+        }
+        return best;
+    }
+    
+    /**
+     *
+     * Picks the block of a shrunken needle whose color occurs the fewest times in it, the first in scan order on ties.
+     * 
+     * @param coarse shrunken needle
+     * @return index of the block in the pixel array
+     */
+    private static int rarest(final Pixels coarse) {
+        final int[] d = coarse.data();
+        final Map<Integer, Integer> counts = new HashMap<>();
+        for (final int rgb : d) {
+            counts.merge(rgb, 1, Integer::sum);
+        }
+        int best = 0;
+        for (int i = 1; i < d.length; i++) {
+            if (counts.get(d[i]) < counts.get(d[best])) best = i;
+        }
+        return best;
+    }
+    
+    /**
+     *
+     * Returns the bucket of every channel value, buckets being one wider than the tolerance so that values within the tolerance are at most one bucket apart.
+     * 
+     * @param tolerance largest allowed difference of a channel, negative for exact searches
+     * @return bucket of each value from 0 to 255, or null for exact searches
+     */
+    private static int[] quantizer(final int tolerance) {
+        if (tolerance < 0) return null;
+        final int[] quantized = new int[256];
+        for (int c = 0; c < 256; c++) {
+            quantized[c] = c / (tolerance + 1);
+        }
+        return quantized;
+    }
+    
+    private static int bucket(final int r, final int g, final int b) {
+        return r << 16 | g << 8 | b;
+    }
+    
+    /**
+     *
+     * Averages blocks of pixels into a smaller image. Each channel, alpha included, is the rounded down mean of the block.
+     * 
+     * @param source pixels to shrink
+     * @param fromX x-coordinate of the first block
+     * @param fromY y-coordinate of the first block
+     * @param factor width and height of a block
+     * @return one pixel per whole block
+     */
+    static Pixels shrink(final Pixels source, final int fromX, final int fromY, final int factor) {
+        final int width = (source.getWidth() - fromX) / factor, height = (source.getHeight() - fromY) / factor;
+        final int[] d = source.data(), out = new int[width * height];
+        final int fill = source.fill(), area = factor * factor;
+        final int[] sums = new int[width * 4];
+        for (int cy = 0; cy < height; cy++) {
+            Arrays.fill(sums, 0);
+            for (int y = 0; y < factor; y++) {
+                final int row = source.offset() + (fromY + cy * factor + y) * source.scanline() + fromX;
+                for (int x = 0; x < width * factor; x++) {
+                    final int rgb = d[row + x] | fill, i = (x / factor) * 4;
+                    sums[i] += rgb >>> 24;
+                    sums[i + 1] += (rgb >> 16) & 0xFF;
+                    sums[i + 2] += (rgb >> 8) & 0xFF;
+                    sums[i + 3] += rgb & 0xFF;
+                }
+            }
+            for (int cx = 0; cx < width; cx++) {
+                final int i = cx * 4;
+                out[cy * width + cx] = (sums[i] / area) << 24 | (sums[i + 1] / area) << 16 | (sums[i + 2] / area) << 8 | sums[i + 3] / area;
+            }
+        }
+        return new Pixels(out, width, height);
+    }
+    
+    private static int factor(final Needle needle) {
+        //every way of laying the needle across blocks must still cover at least two whole blocks per direction
+        final int size = Math.min(needle.getWidth(), needle.getHeight());
+        return size >= 16 ? 4 : size >= 4 ? 2 : 1;
+    }
+    
+    
+    /**
+     *
+     * Open addressing table from the keys of a search to the ways of laying the needle they belong to. Most blocks of a haystack hit an empty slot and are rejected by a single lookup.
+     */
+    private static final class Keys {
+
+        private final int[] buckets, heads, phases, next;
+        private final int mask;
+        private int size = 0;
+
+        Keys(final int capacity) {
+            final int length = Integer.highestOneBit(Math.max(4, capacity) * 4);
+            mask = length - 1;
+            buckets = new int[length];
+            heads = new int[length];
+            phases = new int[capacity];
+            next = new int[capacity];
+            Arrays.fill(heads, -1);
+        }
+
+        void add(final int bucket, final int phase) {
+            int i = slot(bucket);
+            while (heads[i] >= 0 && buckets[i] != bucket) {
+                i = (i + 1) & mask;
+            }
+            buckets[i] = bucket;
+            phases[size] = phase;
+            next[size] = heads[i];
+            heads[i] = size++;
+        }
+
+        int first(final int bucket) {
+            for (int i = slot(bucket); heads[i] >= 0; i = (i + 1) & mask) {
+                if (buckets[i] == bucket) return heads[i];
+            }
+            return -1;
+        }
+
+        int next(final int entry) {
+            return next[entry];
+        }
+
+        int phase(final int entry) {
+            return phases[entry];
+        }
+
+        private int slot(final int bucket) {
+            return (bucket * 0x9E3779B9 >>> 16) & mask;
+        }
+
+    }
+    
+}
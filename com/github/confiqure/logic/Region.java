@@ -0,0 +1,76 @@
+package com.github.confiqure.logic;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+
+/**
+ *
+ * Connected area of pixels found by a Labeller.
+ * 
+ * @author Dylan Wheeler
+ */
+public final class Region {
+    
+    private final int index, x, y, width, height, size;
+    private final double centroidX, centroidY;
+    
+    Region(final int index, final int x, final int y, final int width, final int height, final int size, final double centroidX, final double centroidY) {
+        this.index = index;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.size = size;
+        this.centroidX = centroidX;
+        this.centroidY = centroidY;
+    }
+    
+    /**
+     *
+     * Returns the position of the region in the list returned by the labeller, which is also the label of its pixels.
+     * 
+     * @return index of the region
+     * @see com.github.confiqure.logic.Labeller#getLabel(int, int)
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     *
+     * Returns the smallest rectangle containing every pixel of the region.
+     * 
+     * @return bounding box
+     * @see java.awt.Rectangle
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(x, y, width, height);
+    }
+    
+    /**
+     *
+     * Returns the number of pixels in the region.
+     * 
+     * @return pixel count
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     *
+     * Returns the mean position of the pixels in the region.
+     * 
+     * @return centroid, which lies outside the region for hollow or curved shapes
+     * @see java.awt.geom.Point2D
+     */
+    public Point2D.Double getCentroid() {
+        return new Point2D.Double(centroidX, centroidY);
+    }
+    
+    @Override
+    public String toString() {
+        return "Region[bounds=" + x + "," + y + "," + width + "x" + height + ", size=" + size + "]";
+    }
+    
+}
@@ -0,0 +1,313 @@
+package com.github.confiqure.logic;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+ *
+ * Named collection of needles. Needles with identical pixels are stored once, and needles that look alike can be found through their perceptual hashes.
+ * <p>
+ * A library can be saved to a single file holding an index followed by the raw ARGB pixels of every needle, along with their anchors and hashes. Loading such a file maps it into memory and reads only the index; the pixels of a template are copied out of the mapping the first time it is requested, without decoding any image.
+ * 
+ * @author Dylan Wheeler
+ */
+public class TemplateLibrary {
+    
+    private static final int MAGIC = 0x4D54504C, VERSION = 1;
+    
+    private final Map<String, Template> templates = new LinkedHashMap<>();
+    private final Map<Long, List<Template>> distinct = new HashMap<>();
+    
+    /**
+     *
+     * Adds a needle under a name, replacing any needle already stored under it. If a needle with the same pixels is already in the library, that instance is shared instead.
+     * 
+     * @param name name of the template
+     * @param needle compiled image
+     * @return the needle stored under the name
+     */
+    public synchronized Needle put(final String name, final Needle needle) {
+        final List<Template> candidates = distinct.computeIfAbsent(needle.getHash(), k -> new ArrayList<>(1));
+        Template t = null;
+        for (final Template c : candidates) {
+            //templates loaded from a file only read their pixels when their content hash matches
+            if (c.get().equals(needle)) {
+                t = c;
+                break;
+            }
+        }
+        if (t == null) {
+            t = new Template(needle);
+            candidates.add(t);
+        }
+        templates.put(name, t);
+        return t.get();
+    }
+    
+    /**
+     *
+     * Returns the needle stored under a name.
+     * 
+     * @param name name of the template
+     * @return needle or null if there is none
+     */
+    public synchronized Needle get(final String name) {
+        final Template t = templates.get(name);
+        return t == null ? null : t.get();
+    }
+    
+    /**
+     *
+     * Returns the names of all templates in the order they were added.
+     * 
+     * @return unmodifiable list of names
+     */
+    public synchronized List<String> getNames() {
+        return Collections.unmodifiableList(new ArrayList<>(templates.keySet()));
+    }
+    
+    /**
+     *
+     * Returns the number of templates.
+     * 
+     * @return number of names in the library
+     */
+    public synchronized int size() {
+        return templates.size();
+    }
+    
+    /**
+     *
+     * Finds the templates whose perceptual hash is within a Hamming distance of a needle's. Templates loaded from a file are compared without reading their pixels.
+     * 
+     * @param needle needle to compare against
+     * @param maxDistance largest number of differing bits (0-64)
+     * @return names of the similar templates, closest first
+     */
+    public synchronized List<String> findSimilar(final Needle needle, final int maxDistance) {
+        final List<String> names = new ArrayList<>();
+        final Map<String, Integer> distances = new HashMap<>();
+        for (final Map.Entry<String, Template> e : templates.entrySet()) {
+            final int distance = ImageHash.distance(needle.getPerceptualHash(), e.getValue().perceptualHash);
+            if (distance <= maxDistance) {
+                names.add(e.getKey());
+                distances.put(e.getKey(), distance);
+            }
+        }
+        names.sort((a, b) -> Integer.compare(distances.get(a), distances.get(b)));
+        return names;
+    }
+    
+    /**
+     *
+     * Writes the library to a file that can be loaded with load(File).
+     * 
+     * @param file destination file
+     * @throws IOException if the file could not be written
+     * @throws IllegalArgumentException if a name is longer than 65535 bytes in UTF-8
+     * @see java.io.File
+     */
+    public synchronized void save(final File file) throws IOException {
+        //templates shared between names are written once
+        final Map<Template, Long> offsets = new IdentityHashMap<>();
+        final List<Template> order = new ArrayList<>();
+        long header = 12;
+        for (final Map.Entry<String, Template> e : templates.entrySet()) {
+            final Needle n = e.getValue().get();
+            final int length = e.getKey().getBytes(StandardCharsets.UTF_8).length;
+            if (length > 0xFFFF) throw new IllegalArgumentException("Template name is longer than 65535 bytes: " + e.getKey().substring(0, 32) + "...");
+            header += 2 + length + 12 + n.anchorRGB().length * 12L + 24;
+            if (!offsets.containsKey(e.getValue())) {
+                offsets.put(e.getValue(), 0L);
+                order.add(e.getValue());
+            }
+        }
+        //pixels start on a 4 byte boundary so they can be viewed as ints in place
+        final long start = (header + 3) & ~3L;
+        long offset = start;
+        for (final Template t : order) {
+            offsets.put(t, offset);
+            offset += 4L * t.get().getWidth() * t.get().getHeight();
+        }
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(templates.size());
+            for (final Map.Entry<String, Template> e : templates.entrySet()) {
+                final Needle n = e.getValue().get();
+                final byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(n.getWidth());
+                out.writeInt(n.getHeight());
+                out.writeInt(n.anchorRGB().length);
+                for (int i = 0; i < n.anchorRGB().length; i++) {
+                    out.writeInt(n.anchorX()[i]);
+                    out.writeInt(n.anchorY()[i]);
+                    out.writeInt(n.anchorRGB()[i]);
+                }
+                out.writeLong(n.getHash());
+                out.writeLong(n.getPerceptualHash());
+                out.writeLong(offsets.get(e.getValue()));
+            }
+            for (long i = header; i < start; i++) {
+                out.writeByte(0);
+            }
+            for (final Template t : order) {
+                final Pixels p = t.get().getPixels();
+                for (int i = 0; i < p.getWidth() * p.getHeight(); i++) {
+                    out.writeInt(p.data()[i]);
+                }
+            }
+        }
+    }
+    
+    /**
+     *
+     * Loads a library written by save(File). The file is mapped into memory and only its index is read up front.
+     * 
+     * @param file library file
+     * @return the library
+     * @throws IOException if the file could not be read or is not a template library
+     * @see java.io.File
+     */
+    public static TemplateLibrary load(final File file) throws IOException {
+        final ByteBuffer buffer;
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r"); final FileChannel channel = raf.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a template library: " + file);
+            }
+            final TemplateLibrary library = new TemplateLibrary();
+            final Map<Long, Template> shared = new HashMap<>();
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+                final int width = buffer.getInt(), height = buffer.getInt(), anchors = buffer.getInt();
+                final int[] anchorX = new int[anchors], anchorY = new int[anchors], anchorRGB = new int[anchors];
+                for (int a = 0; a < anchors; a++) {
+                    anchorX[a] = buffer.getInt();
+                    anchorY[a] = buffer.getInt();
+                    anchorRGB[a] = buffer.getInt();
+                }
+                final long hash = buffer.getLong(), perceptualHash = buffer.getLong(), offset = buffer.getLong();
+                Template t = shared.get(offset);
+                if (t == null) {
+                    final IntBuffer raster = buffer.duplicate().position((int) offset).slice().asIntBuffer().limit(width * height);
+                    t = new Template(raster, width, height, anchorX, anchorY, anchorRGB, hash, perceptualHash);
+                    shared.put(offset, t);
+                    library.distinct.computeIfAbsent(hash, k -> new ArrayList<>(1)).add(t);
+                }
+                library.templates.put(new String(name, StandardCharsets.UTF_8), t);
+            }
+            return library;
+        } catch (final RuntimeException ex) {
+            throw new IOException("Corrupt template library: " + file, ex);
+        }
+    }
+    
+    /**
+     *
+     * Builds a library from every image in a directory, each named after its file without the extension.
+     * 
+     * @param directory directory of images
+     * @return the library
+     * @throws IOException if an image could not be read
+     * @see java.io.File
+     */
+    public static TemplateLibrary build(final File directory) throws IOException {
+        final TemplateLibrary library = new TemplateLibrary();
+        final File[] files = directory.listFiles();
+        if (files == null) throw new IOException("Not a directory: " + directory);
+        Arrays.sort(files);
+        for (final File f : files) {
+            if (!f.isFile()) continue;
+            final BufferedImage image = ImageIO.read(f);
+            if (image == null) continue;
+            final String name = f.getName().contains(".") ? f.getName().substring(0, f.getName().lastIndexOf('.')) : f.getName();
+            library.put(name, new Needle(image));
+        }
+        return library;
+    }
+    
+    /**
+     *
+     * Builds a library file from a directory of images.
+     * 
+     * @param args directory of images and destination file
+     * @throws IOException if an image could not be read or the file could not be written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: TemplateLibrary <image directory> <library file>");
+            System.exit(1);
+        }
+        final TemplateLibrary library = build(new File(args[0]));
+        library.save(new File(args[1]));
+        System.out.println("Wrote " + library.size() + " templates to " + args[1]);
+    }
+    
+    /**
+     *
+     * Needle of the library, or the location of its pixels in a mapped file until it is first needed.
+     */
+    private static final class Template {
+
+        private final long perceptualHash;
+        private Needle needle;
+        private IntBuffer raster;
+        private int width, height;
+        private int[] anchorX, anchorY, anchorRGB;
+        private long hash;
+
+        Template(final Needle needle) {
+            this.needle = needle;
+            this.hash = needle.getHash();
+            this.perceptualHash = needle.getPerceptualHash();
+        }
+
+        Template(final IntBuffer raster, final int width, final int height, final int[] anchorX, final int[] anchorY, final int[] anchorRGB, final long hash, final long perceptualHash) {
+            this.raster = raster;
+            this.width = width;
+            this.height = height;
+            this.anchorX = anchorX;
+            this.anchorY = anchorY;
+            this.anchorRGB = anchorRGB;
+            this.hash = hash;
+            this.perceptualHash = perceptualHash;
+        }
+
+        Needle get() {
+            if (needle == null) {
+                final int[] data = new int[width * height];
+                raster.get(0, data);
+                needle = new Needle(data, width, height, anchorX, anchorY, anchorRGB, hash, perceptualHash);
+                raster = null;
+            }
+            return needle;
+        }
+
+    }
+    
+}
@@ -0,0 +1,158 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ *
+ * Follows one needle across successive frames of the screen. The next location is predicted from the last two matches, and a window around it is searched first, growing four times wider on each miss; the whole frame is scanned only once the windows have failed. An element that stays put or moves steadily is found at the cost of a search barely larger than the needle. Instances are not safe for use by multiple threads.
+ * 
+ * @author Dylan Wheeler
+ */
+public class Tracker {
+    
+    private final Needle needle;
+    private final int margin;
+    private Point last = null, previous = null;
+    private int windowHits = 0, fullScans = 0;
+    
+    /**
+     *
+     * Creates new instance with a first window extending 16 pixels beyond the needle on each side.
+     * 
+     * @param needle compiled image to follow
+     */
+    public Tracker(final Needle needle) {
+        this(needle, 16);
+    }
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param needle compiled image to follow
+     * @param margin pixels the first window extends beyond the predicted location of the needle on each side
+     */
+    public Tracker(final Needle needle, final int margin) {
+        if (margin < 1) throw new IllegalArgumentException("Margin must be positive: " + margin);
+        this.needle = needle;
+        this.margin = margin;
+    }
+    
+    /**
+     *
+     * Returns Point where the needle is contained within a frame.
+     * 
+     * @param frame image to search, usually the next screenshot
+     * @return point nearest the predicted location where the needle is represented in the frame, or null if there is none
+     * @see java.awt.image.BufferedImage
+     */
+    public Point find(final BufferedImage frame) {
+        if (frame == null) return null;
+        return find(Pixels.of(frame));
+    }
+    
+    /**
+     *
+     * Returns Point where the needle is contained within a frame. Distance from the prediction is the larger of the horizontal and vertical offsets, so the first window holding a match also holds the nearest one; ties, and the first search of all, take the first match scanning top to bottom and then left to right.
+     * 
+     * @param frame pixels to search, usually the next screenshot
+     * @return point nearest the predicted location where the needle is represented in the frame, or null if there is none
+     */
+    public Point find(final Pixels frame) {
+        final Rectangle bounds = new Rectangle(0, 0, frame.getWidth(), frame.getHeight());
+        final Point predicted = getPrediction();
+        if (predicted != null) {
+            for (int m = margin; ; m *= 4) {
+                final Rectangle window = bounds.intersection(new Rectangle(predicted.x - m, predicted.y - m, needle.getWidth() + 2 * m, needle.getHeight() + 2 * m));
+                //a window covering the whole frame is the full scan below
+                if (window.equals(bounds)) break;
+                if (window.width >= needle.getWidth() && window.height >= needle.getHeight()) {
+                    final Point p = nearest(frame.getSubPixels(window.x, window.y, window.width, window.height), new Point(predicted.x - window.x, predicted.y - window.y));
+                    if (p != null) {
+                        p.translate(window.x, window.y);
+                        windowHits++;
+                        return hit(p);
+                    }
+                }
+                if (m >= Math.max(bounds.width, bounds.height)) break;
+            }
+        }
+        fullScans++;
+        final Point p = predicted == null ? Matcher.find(frame, needle) : nearest(frame, predicted);
+        return p == null ? null : hit(p);
+    }
+    
+    /**
+     *
+     * Finds the match nearest a point, measuring distance as the larger of the horizontal and vertical offsets.
+     * 
+     * @param frame pixels to search
+     * @param target point to measure distance from
+     * @return top left corner of the nearest match, the first in scan order on ties, or null if there is none
+     */
+    private Point nearest(final Pixels frame, final Point target) {
+        Point best = null;
+        int distance = Integer.MAX_VALUE;
+        final int toY = frame.getHeight() - needle.getHeight() + 1;
+        for (Point p = Matcher.find(frame, needle); p != null; p = Matcher.find(frame, needle, p.x + 1, p.y, toY)) {
+            final int d = Math.max(Math.abs(p.x - target.x), Math.abs(p.y - target.y));
+            if (d < distance) {
+                best = p;
+                distance = d;
+                if (d == 0) break;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     *
+     * Returns the location the next search starts from: the last match moved by as much as it moved since the match before it.
+     * 
+     * @return predicted top left corner of the needle or null if it has not been found yet
+     */
+    public Point getPrediction() {
+        if (last == null) return null;
+        if (previous == null) return new Point(last);
+        return new Point(2 * last.x - previous.x, 2 * last.y - previous.y);
+    }
+    
+    /**
+     *
+     * Returns the number of searches answered by a window around the prediction.
+     * 
+     * @return searches that avoided scanning the whole frame
+     */
+    public int getWindowHits() {
+        return windowHits;
+    }
+    
+    /**
+     *
+     * Returns the number of searches that scanned the whole frame.
+     * 
+     * @return full scans, including the first search and every miss
+     */
+    public int getFullScans() {
+        return fullScans;
+    }
+    
+    /**
+     *
+     * Forgets the remembered matches, so the next search scans the whole frame.
+     * 
+     */
+    public void reset() {
+        last = null;
+        previous = null;
+    }
+    
+    private Point hit(final Point p) {
+        previous = last;
+        last = new Point(p);
+        return p;
+    }
+    
+}
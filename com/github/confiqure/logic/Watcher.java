@@ -0,0 +1,238 @@
+package com.github.confiqure.logic;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Watches the screen for many conditions at once. Each tick takes a single screenshot and tests every pending condition against it, completing the future of each condition that holds, so the cost of a tick does not grow with a capture per condition.
+ * 
+ * @author Dylan Wheeler
+ */
+public class Watcher implements AutoCloseable {
+    
+    private final Images images;
+    private final CopyOnWriteArrayList<Condition<?>> conditions = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService ticker = null;
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param images instance of the Images class to take screenshots with
+     * @see com.github.confiqure.logic.Images
+     */
+    public Watcher(final Images images) {
+        this.images = images;
+    }
+    
+    /**
+     *
+     * Waits for a needle to appear on the screen.
+     * 
+     * @param needle compiled image to wait for
+     * @param area area on the screen to scan, or null for the entire screen
+     * @return future completed with the point on screen where the needle appeared
+     */
+    public CompletableFuture<Point> whenPresent(final Needle needle, final Rectangle area) {
+        return add(new Condition<Point>() {
+            @Override
+            Point test(final Pixels frame) {
+                final Rectangle r = clip(area, frame);
+                if (r.width < needle.getWidth() || r.height < needle.getHeight()) return null;
+                final Point p = Matcher.find(frame.getSubPixels(r.x, r.y, r.width, r.height), needle);
+                if (p != null) p.translate(r.x, r.y);
+                return p;
+            }
+        });
+    }
+    
+    /**
+     *
+     * Waits for a needle to no longer be on the screen.
+     * 
+     * @param needle compiled image to wait for
+     * @param area area on the screen to scan, or null for the entire screen
+     * @return future completed once the needle is absent
+     */
+    public CompletableFuture<Boolean> whenAbsent(final Needle needle, final Rectangle area) {
+        return add(new Condition<Boolean>() {
+            @Override
+            Boolean test(final Pixels frame) {
+                final Rectangle r = clip(area, frame);
+                if (r.width < needle.getWidth() || r.height < needle.getHeight()) return true;
+                return Matcher.find(frame.getSubPixels(r.x, r.y, r.width, r.height), needle) == null ? true : null;
+            }
+        });
+    }
+    
+    /**
+     *
+     * Waits for a pixel on the screen to become a specific color.
+     * 
+     * @param x x-coordinate of the pixel
+     * @param y y-coordinate of the pixel
+     * @param rgb the RGB value of the color in the default sRGB ColorModel
+     * @return future completed once the pixel has the color
+     */
+    public CompletableFuture<Boolean> whenColor(final int x, final int y, final int rgb) {
+        return add(new Condition<Boolean>() {
+            @Override
+            Boolean test(final Pixels frame) {
+                if (x < 0 || y < 0 || x >= frame.getWidth() || y >= frame.getHeight()) return null;
+                return frame.getRGB(x, y) == rgb ? true : null;
+            }
+        });
+    }
+    
+    /**
+     *
+     * Waits for an area of the screen to change from how it looks on the first tick after this call.
+     * 
+     * @param area area on the screen to watch, or null for the entire screen
+     * @return future completed once any pixel in the area has changed
+     */
+    public CompletableFuture<Boolean> whenChanged(final Rectangle area) {
+        return add(new Condition<Boolean>() {
+            private int[] baseline = null;
+
+            @Override
+            Boolean test(final Pixels frame) {
+                final Rectangle r = clip(area, frame);
+                if (r.isEmpty()) return null;
+                final int[] data = frame.data();
+                final int fill = frame.fill();
+                if (baseline == null) {
+                    baseline = new int[r.width * r.height];
+                    for (int y = 0; y < r.height; y++) {
+                        final int row = frame.offset() + (r.y + y) * frame.scanline() + r.x;
+                        for (int x = 0; x < r.width; x++) {
+                            baseline[y * r.width + x] = data[row + x] | fill;
+                        }
+                    }
+                    return null;
+                }
+                for (int y = 0; y < r.height; y++) {
+                    final int row = frame.offset() + (r.y + y) * frame.scanline() + r.x;
+                    for (int x = 0; x < r.width; x++) {
+                        if ((data[row + x] | fill) != baseline[y * r.width + x]) return true;
+                    }
+                }
+                return null;
+            }
+        });
+    }
+    
+    /**
+     *
+     * Takes one screenshot and tests every pending condition against it.
+     * 
+     * @return number of conditions still pending
+     */
+    public int tick() {
+        if (conditions.isEmpty()) return 0;
+        final BufferedImage image;
+        try {
+            image = images.screenshot();
+        } catch (final RuntimeException ex) {
+            for (final Condition<?> c : conditions) {
+                c.future.completeExceptionally(ex);
+            }
+            conditions.clear();
+            return 0;
+        }
+        return tick(image);
+    }
+    
+    /**
+     *
+     * Tests every pending condition against a screenshot taken elsewhere, such as a frame from a CapturePipeline.
+     * 
+     * @param image capture of the entire screen
+     * @return number of conditions still pending
+     * @see com.github.confiqure.logic.CapturePipeline
+     */
+    public int tick(final BufferedImage image) {
+        final Pixels frame = Pixels.of(image);
+        for (final Condition<?> c : conditions) {
+            if (c.future.isDone() || c.evaluate(frame)) conditions.remove(c);
+        }
+        return conditions.size();
+    }
+    
+    /**
+     *
+     * Starts ticking on a background thread. Calling this on a running watcher has no effect.
+     * 
+     * @param sleep milliseconds to sleep between ticks
+     */
+    public synchronized void start(final long sleep) {
+        if (ticker != null) return;
+        ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread t = new Thread(task, "Watcher");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, 0, sleep, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     *
+     * Stops ticking and cancels every pending condition.
+     * 
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker != null) ticker.shutdownNow();
+        ticker = null;
+        for (final Condition<?> c : conditions) {
+            c.future.cancel(false);
+        }
+        conditions.clear();
+    }
+    
+    private <T> CompletableFuture<T> add(final Condition<T> condition) {
+        conditions.add(condition);
+        return condition.future;
+    }
+    
+    private static Rectangle clip(final Rectangle area, final Pixels frame) {
+        final Rectangle bounds = new Rectangle(0, 0, frame.getWidth(), frame.getHeight());
+        return area == null ? bounds : bounds.intersection(area);
+    }
+    
+    /**
+     *
+     * Condition tested on each tick, holding the future it completes.
+     */
+    private abstract static class Condition<T> {
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        /**
+         *
+         * Tests the condition against a frame.
+         * 
+         * @param frame pixels of the entire screen
+         * @return value to complete the future with, or null if the condition does not hold yet
+         */
+        abstract T test(Pixels frame);
+
+        boolean evaluate(final Pixels frame) {
+            try {
+                final T value = test(frame);
+                return value != null && future.complete(value);
+            } catch (final RuntimeException ex) {
+                return future.completeExceptionally(ex);
+            }
+        }
+
+    }
+    
+}
@@ -0,0 +1,179 @@
+package com.github.confiqure.session;
+
+import com.github.confiqure.backend.InputBackend;
+import com.github.confiqure.backend.RobotBackend;
+import com.github.confiqure.backend.ScreenBackend;
+import com.github.confiqure.input.Keyboard;
+import com.github.confiqure.input.Mouse;
+import com.github.confiqure.io.Clipboard;
+import com.github.confiqure.logic.Images;
+import java.awt.AWTException;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *
+ * Keyboard, Mouse and Images bound to one screen. Each session has its own Robot, works in the coordinates of its own screen, and keeps its own sleeps, pacing and capture cache.
+ * <p>
+ * Sessions are not isolated from each other: every screen of a display shares one pointer, one keyboard focus and one clipboard. Only capturing and analyzing the screen run fully in parallel. Every move, click, drag, key press, paste and run of typed text holds an input lock shared by all sessions of the display, so input from different sessions takes turns one action at a time. A macro whose actions must follow each other without another session's input in between, such as clicking a field and typing into it, should hold getInputLock() across them. Sessions are not safe for use by multiple threads; a SessionExecutor gives each one a thread of its own.
+ * 
+ * @author Dylan Wheeler
+ * @see com.github.confiqure.session.SessionExecutor
+ */
+public class Session {
+    
+    private static final Lock DISPLAY = new ReentrantLock();
+    private static final Map<InputBackend, Lock> locks = new WeakHashMap<>();
+    
+    private final String name;
+    private final Keyboard keyboard;
+    private final Mouse mouse;
+    private final Images images;
+    private final Lock lock;
+    
+    /**
+     *
+     * Creates new instance for a screen device.
+     * 
+     * @param device screen to drive
+     * @throws AWTException if the Robot could not be instanced
+     * @see java.awt.GraphicsDevice
+     */
+    public Session(final GraphicsDevice device) throws AWTException {
+        this(device.getIDstring(), RobotBackend.get(device), RobotBackend.get(device));
+    }
+    
+    /**
+     *
+     * Creates new instance over backends, for instance a MemoryBackend to run a macro headless.
+     * 
+     * @param name name of the session
+     * @param input backend to send keyboard and mouse events to
+     * @param screen backend to take captures with
+     * @see com.github.confiqure.backend.InputBackend
+     * @see com.github.confiqure.backend.ScreenBackend
+     */
+    public Session(final String name, final InputBackend input, final ScreenBackend screen) {
+        this.name = name;
+        lock = lockFor(input);
+        keyboard = new Keyboard(input);
+        keyboard.setInputLock(lock);
+        mouse = new Mouse(input);
+        mouse.setInputLock(lock);
+        images = new Images(screen);
+    }
+    
+    /**
+     *
+     * Returns the input lock of the sessions sending events through a backend. Every screen of the real display shares the pointer and keyboard focus, so every RobotBackend shares one lock; any other backend gets a lock of its own.
+     * 
+     * @param input backend events are sent to
+     * @return lock shared by every session on the backend
+     */
+    private static synchronized Lock lockFor(final InputBackend input) {
+        if (input instanceof RobotBackend) return DISPLAY;
+        return locks.computeIfAbsent(input, k -> new ReentrantLock());
+    }
+    
+    /**
+     *
+     * Creates a session for every screen of the display.
+     * 
+     * @return one session per screen device
+     * @throws AWTException if a Robot could not be instanced
+     * @see java.awt.GraphicsEnvironment#getScreenDevices()
+     */
+    public static List<Session> forAllScreens() throws AWTException {
+        final List<Session> sessions = new ArrayList<>();
+        for (final GraphicsDevice device : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+            sessions.add(new Session(device));
+        }
+        return sessions;
+    }
+    
+    /**
+     *
+     * Returns the name of the session.
+     * 
+     * @return ID string of the screen device, or the name given
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     *
+     * Returns the keyboard of the session.
+     * 
+     * @return keyboard sending its events to the session's screen
+     */
+    public Keyboard getKeyboard() {
+        return keyboard;
+    }
+    
+    /**
+     *
+     * Returns the mouse of the session.
+     * 
+     * @return mouse moving in the session's screen
+     */
+    public Mouse getMouse() {
+        return mouse;
+    }
+    
+    /**
+     *
+     * Returns the images of the session.
+     * 
+     * @return images capturing the session's screen
+     */
+    public Images getImages() {
+        return images;
+    }
+    
+    /**
+     *
+     * Returns the lock every Keyboard and Mouse action of the session holds. Holding it keeps the input of other sessions on the same display out until it is released.
+     * 
+     * @return lock shared by every session on the same display
+     * @see java.util.concurrent.locks.Lock
+     */
+    public Lock getInputLock() {
+        return lock;
+    }
+    
+    /**
+     *
+     * Reads the clipboard. Every screen of a display shares one clipboard, so reads are made while no session is pasting.
+     * 
+     * @return clipboard contents or null if there was an error thrown
+     */
+    public String getClipboard() {
+        synchronized (Clipboard.class) {
+            return Clipboard.get();
+        }
+    }
+    
+    /**
+     *
+     * Pastes text on the session's screen. The clipboard is held for the duration, so sessions pasting at the same time do not overwrite each other's text.
+     * 
+     * @param text text to paste
+     * @return true if text pasted successfully
+     */
+    public boolean paste(final String text) {
+        return keyboard.paste(text, false);
+    }
+    
+    @Override
+    public String toString() {
+        return "Session[" + name + "]";
+    }
+    
+}
@@ -0,0 +1,154 @@
+package com.github.confiqure.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ *
+ * Runs macros on many sessions at once in one process. Every session gets a dedicated thread, so the macros of one session run one after another while different sessions run in parallel, and no session is ever touched by two threads. Sessions of one display still share its pointer and keyboard, so their input takes turns through the display's input lock; what runs in parallel is capturing and analyzing the screens.
+ * 
+ * @author Dylan Wheeler
+ * @see com.github.confiqure.session.Session
+ */
+public class SessionExecutor implements AutoCloseable {
+    
+    /**
+     *
+     * Macro run against a session.
+     * 
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    public interface Macro<T> {
+
+        /**
+         *
+         * Runs the macro.
+         * 
+         * @param session session to drive
+         * @return result completing the macro's future
+         * @throws Exception if the macro failed
+         */
+        T run(Session session) throws Exception;
+
+    }
+    
+    private final Map<Session, ExecutorService> threads = new LinkedHashMap<>();
+    
+    /**
+     *
+     * Creates new instance.
+     * 
+     * @param sessions sessions to run macros on
+     * @throws IllegalArgumentException if a session is listed more than once
+     */
+    public SessionExecutor(final List<Session> sessions) {
+        //checked before any thread is started, so a rejected list leaks none
+        if (new HashSet<>(sessions).size() != sessions.size()) throw new IllegalArgumentException("Duplicate session in " + sessions);
+        for (final Session s : sessions) {
+            threads.put(s, Executors.newSingleThreadExecutor(task -> {
+                final Thread t = new Thread(task, "Session " + s.getName());
+                t.setDaemon(true);
+                return t;
+            }));
+        }
+    }
+    
+    /**
+     *
+     * Returns the sessions of the executor.
+     * 
+     * @return unmodifiable list of sessions in the order they were given
+     */
+    public List<Session> getSessions() {
+        return Collections.unmodifiableList(new ArrayList<>(threads.keySet()));
+    }
+    
+    /**
+     *
+     * Queues a macro on one session, behind the macros already queued on it.
+     * 
+     * @param <T> type of the result
+     * @param session session to run the macro on
+     * @param macro macro to run
+     * @return future completed with the macro's result, or exceptionally if it threw
+     */
+    public <T> CompletableFuture<T> submit(final Session session, final Macro<T> macro) {
+        final ExecutorService thread = threads.get(session);
+        if (thread == null) throw new IllegalArgumentException("Session does not belong to this executor: " + session);
+        final Task<T> task = new Task<>(session, macro);
+        try {
+            thread.execute(task);
+        } catch (final RuntimeException ex) {
+            task.future.completeExceptionally(ex);
+        }
+        return task.future;
+    }
+    
+    /**
+     *
+     * Queues the same macro on every session.
+     * 
+     * @param <T> type of the result
+     * @param macro macro to run
+     * @return futures of the macro on each session, in the order of the sessions
+     */
+    public <T> List<CompletableFuture<T>> submitAll(final Macro<T> macro) {
+        final List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (final Session s : threads.keySet()) {
+            futures.add(submit(s, macro));
+        }
+        return futures;
+    }
+    
+    /**
+     *
+     * Stops every session thread. Running macros are interrupted, and queued macros never start and have their futures cancelled.
+     * 
+     */
+    @Override
+    public void close() {
+        for (final ExecutorService thread : threads.values()) {
+            for (final Runnable r : thread.shutdownNow()) {
+                ((Task<?>) r).future.cancel(false);
+            }
+        }
+    }
+    
+    /**
+     *
+     * Queued macro with the future it completes.
+     * 
+     * @param <T> type of the result
+     */
+    private static final class Task<T> implements Runnable {
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Session session;
+        private final Macro<T> macro;
+
+        Task(final Session session, final Macro<T> macro) {
+            this.session = session;
+            this.macro = macro;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) return;
+            try {
+                future.complete(macro.run(session));
+            } catch (final Exception ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+
+    }
+    
+}
@@ -1,6 +1,7 @@
 package com.github.confiqure.util;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  *
@@ -44,6 +45,27 @@ public class Time {
         return true;
     }
     
+    /**
+     *
+     * Sleeps until an exact moment. The thread parks until shortly before the deadline and spins for the rest, which is far more precise than Thread.sleep.
+     * 
+     * @param deadline value of System.nanoTime() to wake at
+     * @return true if the deadline was reached, false if the thread was interrupted
+     * @see java.lang.System#nanoTime()
+     */
+    public static boolean sleepUntil(final long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (Thread.currentThread().isInterrupted()) return false;
+            if (remaining > 2000000L) {
+                LockSupport.parkNanos(remaining - 1000000L);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+    
     /**
      *
      * Sleeps until a specific event occurs. This event is customizable through a Callable object.